@@ -0,0 +1,57 @@
+package mastermind;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Class that runs the benchmarks. It accepts the normal JMH command line
+ * options, but always adds the GC profiler (so allocation rates are reported)
+ * and writes JSON results to <code>benchmarks/target/results.json</code>
+ * unless another result file is given. The baseline in
+ * <code>benchmarks/baseline.json</code> is only written when it's given as
+ * the result file, so ordinary runs can't overwrite it.
+ * 
+ * @author Jon
+ *
+ */
+public class BenchmarkMain
+{
+	
+	/*
+	 * Default JSON result file, relative to the repository root. It's in the build directory next
+	 * to the benchmarks jar, away from the baseline.
+	 */
+	private static final String DEFAULT_RESULT_FILE = "benchmarks/target/results.json";
+
+    /**
+     * Specifies the main benchmark entry point.
+     * 
+     * @param args JMH command line options
+     * @throws CommandLineOptionException If the command line options are not valid.
+     * @throws RunnerException If a benchmark fails to run.
+     */
+	public static void main (String[] args) 
+			throws CommandLineOptionException, RunnerException
+	{
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(commandLine);
+		builder.addProfiler(GCProfiler.class);
+		builder.resultFormat(ResultFormatType.JSON);
+		
+		if (commandLine.getResult().hasValue() == false)
+		{
+			builder.result(DEFAULT_RESULT_FILE);
+		}
+		
+		Options options = builder.build();
+		new Runner(options).run();
+	}
+}
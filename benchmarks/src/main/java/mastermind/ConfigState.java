@@ -0,0 +1,39 @@
+package mastermind;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state that sets the game options to every combination of number
+ * of colors, number of holes, duplicates allowed and blanks allowed.
+ * 
+ * @author Jon
+ *
+ */
+@State(Scope.Benchmark)
+public class ConfigState
+{
+	@Param({"6", "8"})
+	public int numColors;
+
+	@Param({"4", "5"})
+	public int numHoles;
+
+	@Param({"true", "false"})
+	public boolean dupsAllowed;
+
+	@Param({"true", "false"})
+	public boolean blanksAllowed;
+
+	/**
+	 * Sets the game options singleton to the configuration under test.
+	 */
+	@Setup
+	public void setOptions ()
+	{
+		Options.getInstance().commit(new OptionsSnapshot(numColors, numHoles,
+				Options.NumGuesses.TWELVE.getNumGuessesValue(), dupsAllowed, blanksAllowed));
+	}
+}
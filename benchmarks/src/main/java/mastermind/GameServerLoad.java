@@ -0,0 +1,225 @@
+package mastermind;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that puts load on a <code>GameServer</code> and reports the request
+ * latencies. Each simulated player runs on its own virtual thread. A player
+ * starts all its games first, then takes turns guessing a random code in each
+ * game until they're all over, so the server holds players times games
+ * sessions at once.
+ * <p>
+ * Usage: <code>GameServerLoad [players] [games per player] [server URL]</code>
+ * <p>
+ * Without a server URL, a server is started in this process on a free port.
+ *
+ * @author Jon
+ *
+ */
+public class GameServerLoad
+{
+	private static final int DEFAULT_NUM_PLAYERS = 1000;
+	private static final int DEFAULT_NUM_GAMES = 20;
+	private static final String NEW_GAME_PATH = "/games?colors=8&holes=5&dups=true&blanks=false";
+
+    /**
+     * Specifies the main load generator entry point.
+     *
+     * @param args number of players, games per player and server URL
+     * @throws Exception If the server can't be started, or a player fails.
+     */
+	public static void main (String[] args)
+			throws Exception
+	{
+		int numPlayers = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NUM_PLAYERS;
+		int numGames = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUM_GAMES;
+
+		/*
+		 * Start a local server if we weren't given one.
+		 */
+		GameServer server = null;
+		String baseUrl;
+		if (args.length > 2)
+		{
+			baseUrl = args[2];
+		}
+		else
+		{
+			GameServer.raiseIdleConnectionLimit();
+			server = new GameServer(new InetSocketAddress("localhost", 0), new GameConfig(8, 5, true, false),
+					Options.NumGuesses.TWELVE.getNumGuessesValue(), Duration.ofMinutes(10));
+			server.start();
+			baseUrl = "http://localhost:" + server.getPort();
+		}
+
+		/*
+		 * Play all the games, each player on its own virtual thread.
+		 */
+		HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+		List<Future<long[]>> players = new ArrayList<Future<long[]>>(numPlayers);
+		long start = System.nanoTime();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			for (int i = 0; i < numPlayers; i++)
+			{
+				SplittableRandom rand = new SplittableRandom(i);
+				players.add(executor.submit(() -> play(client, baseUrl, numGames, rand)));
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+		if (server != null)
+		{
+			server.stop();
+		}
+
+		/*
+		 * Gather every request latency, and report the percentiles.
+		 */
+		int numRequests = 0;
+		for (Future<long[]> player : players)
+		{
+			numRequests += player.get().length;
+		}
+
+		long[] latencies = new long[numRequests];
+		int offset = 0;
+		for (Future<long[]> player : players)
+		{
+			long[] playerLatencies = player.get();
+			System.arraycopy(playerLatencies, 0, latencies, offset, playerLatencies.length);
+			offset += playerLatencies.length;
+		}
+		Arrays.sort(latencies);
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("players      %d%n", numPlayers);
+		System.out.printf("sessions     %d%n", numPlayers * numGames);
+		System.out.printf("requests     %d%n", latencies.length);
+		System.out.printf("requests/s   %.1f%n", latencies.length / seconds);
+		System.out.printf("p50          %.3f ms%n", getPercentile(latencies, 50) / 1e6);
+		System.out.printf("p99          %.3f ms%n", getPercentile(latencies, 99) / 1e6);
+		System.out.printf("max          %.3f ms%n", latencies[latencies.length - 1] / 1e6);
+	}
+
+	/*
+	 * Play some games as one player, returning the latency of every request in nanoseconds.
+	 */
+	private static long[] play (HttpClient client, String baseUrl, int numGames, SplittableRandom rand)
+			throws IOException, InterruptedException
+	{
+		long[] latencies = new long[Math.max(16, numGames * 16)];
+		int numLatencies = 0;
+
+		/*
+		 * Start the games, getting each game's ID from the response.
+		 */
+		String[] ids = new String[numGames];
+		for (int game = 0; game < numGames; game++)
+		{
+			long start = System.nanoTime();
+			String body = send(client, HttpRequest.newBuilder(URI.create(baseUrl + NEW_GAME_PATH))
+					.POST(HttpRequest.BodyPublishers.noBody()).build());
+			latencies = record(latencies, numLatencies++, System.nanoTime() - start);
+
+			ids[game] = getField(body, "id");
+		}
+
+		/*
+		 * Take turns guessing a random code in each game that isn't over yet.
+		 */
+		int numActive = numGames;
+		while (numActive > 0)
+		{
+			for (int game = 0; game < numActive; game++)
+			{
+				StringBuilder code = new StringBuilder();
+				for (int hole = 0; hole < 5; hole++)
+				{
+					code.append(1 + rand.nextInt(8));
+				}
+
+				long start = System.nanoTime();
+				String body = send(client, HttpRequest.newBuilder(
+						URI.create(baseUrl + "/games/" + ids[game] + "/guess?code=" + code))
+						.POST(HttpRequest.BodyPublishers.noBody()).build());
+				latencies = record(latencies, numLatencies++, System.nanoTime() - start);
+
+				/*
+				 * Drop a finished game by moving the last active game into its place.
+				 */
+				if (getField(body, "state").equals("IN_PROGRESS") == false)
+				{
+					numActive--;
+					ids[game] = ids[numActive];
+					game--;
+				}
+			}
+		}
+
+		return Arrays.copyOf(latencies, numLatencies);
+	}
+
+	/*
+	 * Send a request and get the response body, failing on an error status.
+	 */
+	private static String send (HttpClient client, HttpRequest request)
+			throws IOException, InterruptedException
+	{
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() >= 300)
+		{
+			throw new IOException("Request " + request.uri() + " failed: " + response.statusCode()
+					+ " " + response.body());
+		}
+
+		return response.body();
+	}
+
+	/*
+	 * Store a latency, growing the array if needed.
+	 */
+	private static long[] record (long[] latencies, int index, long latency)
+	{
+		if (index == latencies.length)
+		{
+			latencies = Arrays.copyOf(latencies, latencies.length * 2);
+		}
+		latencies[index] = latency;
+
+		return latencies;
+	}
+
+	/*
+	 * Get a string field from a flat JSON object.
+	 */
+	private static String getField (String json, String name)
+	{
+		String key = "\"" + name + "\":\"";
+		int start = json.indexOf(key) + key.length();
+		return json.substring(start, json.indexOf('"', start));
+	}
+
+	/*
+	 * Get a percentile from sorted values.
+	 */
+	private static long getPercentile (long[] sorted, int percentile)
+	{
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, index)];
+	}
+}
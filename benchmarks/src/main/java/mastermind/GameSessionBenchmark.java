@@ -0,0 +1,127 @@
+package mastermind;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the headless game logic: evaluating a guess, generating a
+ * puzzle, and playing whole games. Every configuration of the game options is covered
+ * through <code>ConfigState</code>.
+ * 
+ * @author Jon
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameSessionBenchmark
+{
+	
+	/*
+	 * Number of precomputed guesses we cycle through, so the JIT can't fold a constant guess.
+	 */
+	private static final int NUM_GUESSES = 1024;
+	
+	private GameConfig config;
+	private int numGuesses;
+	private GameSession session;
+	private SplittableRandom rand;
+	private PuzzleGenerator generator;
+	private int[] guesses;
+	private int guessIndex;
+
+	/**
+	 * Creates a game for the configuration under test, and a set of random
+	 * guesses.
+	 * 
+	 * @param configState configuration under test
+	 */
+	@Setup
+	public void setUp (ConfigState configState)
+	{
+		Options options = Options.getInstance();
+		config = GameConfig.fromOptions(options);
+		numGuesses = options.getNumGuesses();
+		rand = new SplittableRandom(42);
+		generator = new PuzzleGenerator(config, rand);
+		session = new GameSession(config, numGuesses, rand);
+		
+		guesses = new int[NUM_GUESSES];
+		for (int i = 0; i < NUM_GUESSES; i++)
+		{
+			guesses[i] = randomCode();
+		}
+	}
+
+	/**
+	 * Evaluates a guess against the puzzle.
+	 * 
+	 * @return packed score
+	 */
+	@Benchmark
+	public int evaluateGuess ()
+	{
+		guessIndex = (guessIndex + 1) & (NUM_GUESSES - 1);
+		return session.score(guesses[guessIndex]);
+	}
+
+	/**
+	 * Generates a new puzzle.
+	 * 
+	 * @return packed puzzle code
+	 */
+	@Benchmark
+	public int generatePuzzle ()
+	{
+		return generator.next();
+	}
+
+	/**
+	 * Plays a whole game with random guesses, until it's won or lost. The
+	 * throughput of this benchmark is the number of games per second.
+	 * 
+	 * @return number of guesses made
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int playGame ()
+	{
+		GameSession game = new GameSession(config, numGuesses, generator.next());
+		while (game.isOver() == false)
+		{
+			guessIndex = (guessIndex + 1) & (NUM_GUESSES - 1);
+			game.submitGuess(guesses[guessIndex]);
+		}
+		
+		return game.getGuessCount();
+	}
+	
+	/*
+	 * Create a random code, allowing duplicates.
+	 */
+	private int randomCode ()
+	{
+		int code = 0;
+		for (int i = 0; i < config.getNumHoles(); i++)
+		{
+			code = CodeScorer.setHoleValue(code, i, rand.nextInt(config.getNumValues()) + 1);
+		}
+		
+		return code;
+	}
+}
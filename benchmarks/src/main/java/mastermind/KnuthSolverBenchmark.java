@@ -0,0 +1,80 @@
+package mastermind;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the minimax solver, measuring how choosing the first guess
+ * (the most expensive one) scales with the number of fork/join threads on the
+ * largest configuration.
+ * 
+ * @author Jon
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class KnuthSolverBenchmark
+{
+	@Param({"1", "2", "4", "8", "16"})
+	public int numThreads;
+	
+	private ForkJoinPool pool;
+	private KnuthSolver solver;
+	private GameSession session;
+
+	/**
+	 * Creates a solver with its own pool, and a new 8 color, 5 hole game. The
+	 * feedback table is loaded or built first, so every measured guess uses it.
+	 */
+	@Setup
+	public void setUp ()
+	{
+		pool = new ForkJoinPool(numThreads);
+		solver = new KnuthSolver(pool);
+		
+		GameConfig config = new GameConfig(Options.NumColors.EIGHT.getNumColorsValue(), 
+				Options.NumHoles.FIVE.getNumHolesValue(), true, false);
+		FeedbackTables.get(config).join();
+		
+		session = new GameSession(config, Options.NumGuesses.TWELVE.getNumGuessesValue(), 
+				new SplittableRandom(42));
+	}
+
+	/**
+	 * Shuts down the solver's pool.
+	 */
+	@TearDown
+	public void tearDown ()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Chooses the first guess.
+	 * 
+	 * @return packed guess code
+	 */
+	@Benchmark
+	public int firstGuess ()
+	{
+		return solver.chooseGuess(session);
+	}
+}
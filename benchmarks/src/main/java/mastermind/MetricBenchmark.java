@@ -0,0 +1,81 @@
+package mastermind;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the cost of timing an operation with a metric, when the
+ * metric is off and when it's on. The GC profiler shows that neither
+ * allocates.
+ *
+ * @author Jon
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricBenchmark
+{
+
+	/**
+	 * Whether the metric is recording.
+	 */
+	@Param({"false", "true"})
+	public boolean enabled;
+
+	private Metric metric;
+
+	/**
+	 * Creates the metric.
+	 */
+	@Setup
+	public void setUp ()
+	{
+		metric = new Metric("benchmark", "Benchmark metric", enabled);
+	}
+
+	/**
+	 * Times an empty operation on one thread.
+	 *
+	 * @return start time
+	 */
+	@Benchmark
+	public long startStop ()
+	{
+		long start = metric.start();
+		metric.stop(start);
+
+		return start;
+	}
+
+	/**
+	 * Times an empty operation on four threads at once, all recording into the
+	 * same metric.
+	 *
+	 * @return start time
+	 */
+	@Benchmark
+	@Threads(4)
+	public long startStopShared ()
+	{
+		long start = metric.start();
+		metric.stop(start);
+
+		return start;
+	}
+}
@@ -0,0 +1,83 @@
+package mastermind;
+
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading the game options from the Java preferences at
+ * startup, comparing the options store with the old way of doing it, which
+ * looked up the preferences node for every option and wrote every option
+ * back.
+ *
+ * @author Jon
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionsBenchmark
+{
+
+	/**
+	 * Reads all the game options, as done at startup.
+	 *
+	 * @return game options
+	 */
+	@Benchmark
+	public Options readJavaPreferences ()
+	{
+		Options options = Options.getInstance();
+		options.readJavaPreferences();
+		return options;
+	}
+
+	/**
+	 * Reads all the game options the old way: looking up the node, reading the
+	 * option and writing it back, for each option.
+	 *
+	 * @return game options
+	 */
+	@Benchmark
+	public OptionsSnapshot readJavaPreferencesWithWriteBack ()
+	{
+		OptionsSnapshot defaults = OptionsSnapshot.DEFAULTS;
+		return new OptionsSnapshot(
+				readWriteInt(Options.JAVA_PREFS_KEY_NUM_COLORS, defaults.getNumColors()),
+				readWriteInt(Options.JAVA_PREFS_KEY_NUM_HOLES, defaults.getNumHoles()),
+				readWriteInt(Options.JAVA_PREFS_KEY_NUM_GUESSES, defaults.getNumGuesses()),
+				readWriteBoolean(Options.JAVA_PREFS_KEY_DUPS_ALLOWED, defaults.getDupsAllowed()),
+				readWriteBoolean(Options.JAVA_PREFS_KEY_BLANKS_ALLOWED, defaults.getBlanksAllowed()));
+	}
+
+	/*
+	 * Read an integer option and write it back, as the old code did.
+	 */
+	private static int readWriteInt (String key, int defaultValue)
+	{
+		Preferences javaPrefs = Preferences.userRoot().node(Options.class.getName());
+		int result = javaPrefs.getInt(key, defaultValue);
+		javaPrefs.putInt(key, result);
+		return result;
+	}
+
+	/*
+	 * Read a boolean option and write it back, as the old code did.
+	 */
+	private static boolean readWriteBoolean (String key, boolean defaultValue)
+	{
+		Preferences javaPrefs = Preferences.userRoot().node(Options.class.getName());
+		boolean result = javaPrefs.getBoolean(key, defaultValue);
+		javaPrefs.putBoolean(key, result);
+		return result;
+	}
+}
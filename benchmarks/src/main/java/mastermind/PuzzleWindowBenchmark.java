@@ -0,0 +1,74 @@
+package mastermind;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the puzzle window's view logic. Every configuration of the
+ * game options is covered through <code>ConfigState</code>.
+ * 
+ * @author Jon
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuzzleWindowBenchmark
+{
+	private PuzzleWindow puzzleWindow;
+	private int numHoles;
+
+	/**
+	 * Creates a puzzle window (without displaying it) for the configuration under
+	 * test, along with its puzzle board.
+	 * 
+	 * @param config configuration under test
+	 */
+	@Setup
+	public void setUp (ConfigState config)
+	{
+		numHoles = config.numHoles;
+		
+		puzzleWindow = new PuzzleWindow();
+		puzzleWindow.acquireBoard();
+		puzzleWindow.advanceGuessRow();
+		puzzleWindow.commitTurn();
+	}
+
+	/**
+	 * Places a full row of clue pegs, half black and half white, and commits
+	 * the turn's changes to the board.
+	 * 
+	 * @return remaining clue indices
+	 */
+	@Benchmark
+	public List<Integer> placeClues ()
+	{
+		List<Integer> indices = new ArrayList<Integer>(numHoles);
+		for (int i = 0; i < numHoles; i++)
+		{
+			indices.add(i);
+		}
+		
+		indices = puzzleWindow.placeClues(0, numHoles / 2, PegImages.Clue.BLACK, indices);
+		indices = puzzleWindow.placeClues(0, numHoles - numHoles / 2, PegImages.Clue.WHITE, indices);
+		puzzleWindow.commitTurn();
+		
+		return indices;
+	}
+}
@@ -0,0 +1,146 @@
+package mastermind;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.PushButton;
+import org.apache.pivot.wtk.TablePane;
+import org.apache.pivot.wtk.Window;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the frame time after a guess, comparing a repaint of the
+ * whole puzzle board with a repaint of only the components that changed
+ * during the turn.
+ * <p>
+ * The board is laid out in an undisplayed window the size of the whole board,
+ * and painted into an offscreen image, so no display is needed. A 12 row
+ * board is the default game; a 100 row board shows how the cost grows with
+ * the size of the board.
+ *
+ * @author Jon
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RepaintBenchmark
+{
+	private static final int NUM_HOLES = 5;
+
+	/**
+	 * Number of guess rows on the board.
+	 */
+	@Param({"12", "100"})
+	public int numGuesses;
+
+	private Window window;
+	private BufferedImage frame;
+	private Bounds dirtyBounds;
+
+	/**
+	 * Lays out a board, then plays a turn on it: a row of clues, and the
+	 * highlight moving to the next row. The area of the components the turn
+	 * changed is kept for the dirty region repaint.
+	 */
+	@Setup
+	public void setUp ()
+	{
+		PegImages pegImages = PegImages.getInstance();
+		PuzzleBoard board = PuzzleBoard.acquire(NUM_HOLES, numGuesses, pegImages);
+
+		TablePane tablePane = new TablePane();
+		for (int i = 0; i <= NUM_HOLES; i++)
+		{
+			tablePane.getColumns().add(new TablePane.Column());
+		}
+		board.attach(tablePane);
+
+		window = new Window(tablePane);
+		window.setSize(window.getPreferredWidth(-1), window.getPreferredHeight(-1));
+		window.validate();
+
+		frame = new BufferedImage(window.getWidth(), window.getHeight(), BufferedImage.TYPE_INT_ARGB);
+
+		Map<String, Integer> pegBackgroundGray = new HashMap<String, Integer>();
+		pegBackgroundGray.put("backgroundColor", 10);
+		Map<String, Integer> pegBackgroundBlue = new HashMap<String, Integer>();
+		pegBackgroundBlue.put("backgroundColor", 17);
+
+		RenderBatch renderBatch = new RenderBatch();
+		List<PushButton> guessRow = board.getGuessButtons().get(0);
+		List<PushButton> nextGuessRow = board.getGuessButtons().get(1);
+		List<PushButton> clueRow = board.getClueButtons().get(0);
+		for (int i = 0; i < NUM_HOLES; i++)
+		{
+			renderBatch.setStyles(guessRow.get(i), pegBackgroundGray);
+			renderBatch.setStyles(nextGuessRow.get(i), pegBackgroundBlue);
+			renderBatch.setButtonData(clueRow.get(i), pegImages.getClue(PegImages.Clue.BLACK));
+		}
+
+		dirtyBounds = renderBatch.getDirtyBounds(window);
+		renderBatch.commit();
+		window.validate();
+	}
+
+	/**
+	 * Paints the whole board, as the puzzle window did after every guess.
+	 *
+	 * @return frame painted
+	 */
+	@Benchmark
+	public BufferedImage fullRepaint ()
+	{
+		Graphics2D graphics = frame.createGraphics();
+		try
+		{
+			window.paint(graphics);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+
+		return frame;
+	}
+
+	/**
+	 * Paints only the area of the components that changed during the turn.
+	 *
+	 * @return frame painted
+	 */
+	@Benchmark
+	public BufferedImage dirtyRepaint ()
+	{
+		Graphics2D graphics = frame.createGraphics();
+		try
+		{
+			graphics.clipRect(dirtyBounds.x, dirtyBounds.y, dirtyBounds.width, dirtyBounds.height);
+			window.paint(graphics);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+
+		return frame;
+	}
+}
@@ -0,0 +1,110 @@
+package mastermind;
+
+import java.util.SplittableRandom;
+
+/**
+ * Class that reports how well a solver plays every configuration of the game
+ * options: the average and maximum number of guesses, and the mean and
+ * maximum time to choose a move.
+ * <p>
+ * Usage: <code>SolverReport [knuth|entropy][-book] [games per configuration] [seed]</code>
+ * <p>
+ * With the <code>-book</code> suffix the solver plays its opening moves from
+ * an opening book, which is built the first time a configuration is played.
+ * 
+ * @author Jon
+ *
+ */
+public class SolverReport
+{
+	private static final int DEFAULT_NUM_GAMES = 100;
+	private static final long DEFAULT_SEED = 42;
+
+    /**
+     * Specifies the main report entry point.
+     * 
+     * @param args solver name, number of games per configuration and seed
+     */
+	public static void main (String[] args)
+	{
+		String solverName = (args.length > 0) ? args[0] : "entropy";
+		int numGames = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NUM_GAMES;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_SEED;
+		
+		boolean useBook = solverName.endsWith("-book");
+		if (useBook == true)
+		{
+			solverName = solverName.substring(0, solverName.length() - "-book".length());
+		}
+		
+		Solver solver;
+		switch (solverName)
+		{
+		case "knuth":
+			solver = new KnuthSolver();
+			break;
+			
+		case "entropy":
+			solver = new EntropySolver();
+			break;
+			
+		default:
+			throw new IllegalArgumentException("Unknown solver '" + solverName + "'");
+		}
+		
+		if (useBook == true)
+		{
+			solver = new BookSolver(solver);
+		}
+		
+		int numGuesses = Options.NumGuesses.TWELVE.getNumGuessesValue();
+		System.out.printf("%-22s %6s %8s %5s %10s %10s%n", 
+				"configuration", "games", "guesses", "max", "mean ms", "max ms");
+		
+		for (Options.NumColors numColors : Options.NumColors.values())
+		{
+			for (Options.NumHoles numHoles : Options.NumHoles.values())
+			{
+				for (boolean dupsAllowed : new boolean[] { true, false })
+				{
+					for (boolean blanksAllowed : new boolean[] { true, false })
+					{
+						GameConfig config = new GameConfig(numColors.getNumColorsValue(), 
+								numHoles.getNumHolesValue(), dupsAllowed, blanksAllowed);
+						SplittableRandom rand = new SplittableRandom(seed);
+						
+						long totalGuesses = 0;
+						int maxGuesses = 0;
+						long totalNanos = 0;
+						long maxNanos = 0;
+						
+						/*
+						 * Play each game, timing every move.
+						 */
+						for (int i = 0; i < numGames; i++)
+						{
+							GameSession session = new GameSession(config, numGuesses, rand);
+							while (session.isOver() == false)
+							{
+								long start = System.nanoTime();
+								int guess = solver.chooseGuess(session);
+								long elapsed = System.nanoTime() - start;
+								
+								totalNanos += elapsed;
+								maxNanos = Math.max(maxNanos, elapsed);
+								session.submitGuess(guess);
+							}
+							
+							totalGuesses += session.getGuessCount();
+							maxGuesses = Math.max(maxGuesses, session.getGuessCount());
+						}
+						
+						System.out.printf("%-22s %6d %8.3f %5d %10.3f %10.3f%n", config, numGames,
+								(double) totalGuesses / numGames, maxGuesses, 
+								totalNanos / 1e6 / totalGuesses, maxNanos / 1e6);
+					}
+				}
+			}
+		}
+	}
+}
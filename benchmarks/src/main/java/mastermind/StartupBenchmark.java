@@ -0,0 +1,116 @@
+package mastermind;
+
+import java.lang.management.ManagementFactory;
+
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.wtk.Application;
+import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.DesktopApplicationContext;
+import org.apache.pivot.wtk.Display;
+
+/**
+ * Class that measures how long the game takes to start. It runs the real
+ * main window, then opens a puzzle the way the New Game button does, and
+ * reports:
+ * <ul>
+ * <li>time to first frame: from JVM start until the main window is open and
+ * the event queue has caught up with it</li>
+ * <li>time to puzzle ready: from the simulated New Game click until the
+ * puzzle window is open and the event queue has caught up with it</li>
+ * </ul>
+ * This needs a display. Run it in a fresh JVM each time, since only the first
+ * startup counts.
+ * <p>
+ * Usage: <code>StartupBenchmark [click delay ms]</code>
+ * <p>
+ * The click delay is how long after the first frame the New Game click
+ * comes, standing in for the user. It defaults to 500 ms; use 0 to open the
+ * puzzle as soon as possible.
+ *
+ * @author Jon
+ *
+ */
+public class StartupBenchmark implements Application
+{
+	private static final long DEFAULT_CLICK_DELAY_MS = 500;
+
+	private static long clickDelay = DEFAULT_CLICK_DELAY_MS;
+
+	private final MainWindow mainWindow = new MainWindow();
+
+    /**
+     * Specifies the main startup benchmark entry point.
+     *
+     * @param args click delay in milliseconds
+     */
+	public static void main (String[] args)
+	{
+		if (args.length > 0)
+		{
+			clickDelay = Long.parseLong(args[0]);
+		}
+
+		DesktopApplicationContext.main(StartupBenchmark.class, new String[0]);
+	}
+
+	/**
+	 * Starts the main window, then schedules the New Game click.
+	 *
+	 * @param display display object for managing windows
+	 * @param properties properties passed to the application
+	 * @throws Exception If the main window can't be started.
+	 */
+	@Override
+	public void startup (Display display, Map<String, String> properties)
+			throws Exception
+	{
+		mainWindow.startup(display, properties);
+
+		ApplicationContext.queueCallback(() ->
+		{
+			long firstFrame = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+			System.out.printf("time to first frame    %d ms%n", firstFrame);
+
+			ApplicationContext.scheduleCallback(() -> openPuzzle(display), clickDelay);
+		});
+	}
+
+	@Override
+	public boolean shutdown (boolean optional)
+	{
+		return mainWindow.shutdown(optional);
+	}
+
+	@Override
+	public void suspend ()
+	{
+	}
+
+	@Override
+	public void resume ()
+	{
+	}
+
+	/*
+	 * Open a puzzle as the New Game button does, and report how long it took once the event queue
+	 * has caught up.
+	 */
+	private static void openPuzzle (Display display)
+	{
+		long start = System.nanoTime();
+		try
+		{
+			new PuzzleWindow().displayPuzzle(display);
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+
+		ApplicationContext.queueCallback(() ->
+		{
+			System.out.printf("time to puzzle ready   %.1f ms%n", (System.nanoTime() - start) / 1e6);
+			DesktopApplicationContext.exit();
+		});
+	}
+}
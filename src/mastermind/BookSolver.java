@@ -0,0 +1,71 @@
+package mastermind;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class that plays the opening moves of a game from an opening book, and
+ * leaves the rest of the game to another solver. The book for a
+ * configuration is loaded (or built) the first time it's needed.
+ *
+ * @author Jon
+ *
+ */
+public class BookSolver implements Solver
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private final Solver solver;
+	private final int depth;
+
+	/**
+	 * Class constructor specifying the solver and the book depth.
+	 *
+	 * @param solver solver whose moves are kept in the book, and that plays
+	 * the moves past the book
+	 * @param depth number of moves kept in the book
+	 */
+	public BookSolver (Solver solver, int depth)
+	{
+		this.solver = solver;
+		this.depth = depth;
+	}
+
+	/**
+	 * Class constructor specifying the solver, using the default book depth.
+	 *
+	 * @param solver solver whose moves are kept in the book, and that plays
+	 * the moves past the book
+	 */
+	public BookSolver (Solver solver)
+	{
+		this(solver, OpeningBook.DEFAULT_DEPTH);
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Chooses the next guess for a game, from the book if the game is still in
+	 * it, otherwise from the solver.
+	 *
+	 * @param session game in progress
+	 * @param cancelled checked while the book is built, and by the solver
+	 * @return packed guess code
+	 * @throws CancellationException If the search was cancelled.
+	 */
+	@Override
+	public int chooseGuess (GameSession session, BooleanSupplier cancelled)
+	{
+		if (session.getGuessCount() < depth)
+		{
+			int guess = OpeningBook.forConfig(session.getConfig(), solver, depth, cancelled).lookup(session);
+			if (guess != -1)
+			{
+				return guess;
+			}
+		}
+
+		return solver.chooseGuess(session, cancelled);
+	}
+}
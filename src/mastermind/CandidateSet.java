@@ -0,0 +1,226 @@
+package mastermind;
+
+/**
+ * Class that represents the set of codes still consistent with the guesses
+ * and scores of a game. The set is a bitmap over the code index space of a
+ * <code>CodeSpace</code>, kept in a <code>long[]</code>, along with a running
+ * count of the codes in the set.
+ * <p>
+ * After each guess, <code>retainConsistent</code> clears the codes that would
+ * have scored differently, one word at a time. Nothing is allocated per code.
+ *
+ * @author Jon
+ *
+ */
+public final class CandidateSet
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_BITS = 1 << WORD_SHIFT;
+
+	private final CodeSpace codeSpace;
+	private final long[] words;
+	private int count;
+
+	/**
+	 * Class constructor. The set initially contains every code.
+	 *
+	 * @param codeSpace code space
+	 */
+	public CandidateSet (CodeSpace codeSpace)
+	{
+		this.codeSpace = codeSpace;
+
+		int size = codeSpace.getSize();
+		words = new long[(size + WORD_BITS - 1) >>> WORD_SHIFT];
+		for (int i = 0; i < words.length; i++)
+		{
+			words[i] = -1L;
+		}
+
+		/*
+		 * Clear the unused bits at the end of the last word.
+		 */
+		int extraBits = words.length * WORD_BITS - size;
+		if (extraBits > 0)
+		{
+			words[words.length - 1] = -1L >>> extraBits;
+		}
+
+		count = size;
+	}
+
+	/*
+	 * Copy constructor.
+	 */
+	private CandidateSet (CandidateSet other)
+	{
+		codeSpace = other.codeSpace;
+		words = other.words.clone();
+		count = other.count;
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the code space.
+	 *
+	 * @return code space
+	 */
+	public CodeSpace getCodeSpace ()
+	{
+		return codeSpace;
+	}
+
+	/**
+	 * Gets the number of codes in the set.
+	 *
+	 * @return number of codes
+	 */
+	public int getCount ()
+	{
+		return count;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Creates a copy of the set.
+	 *
+	 * @return copy of the set
+	 */
+	public CandidateSet copy ()
+	{
+		return new CandidateSet(this);
+	}
+
+	/**
+	 * Indicates if a code is in the set.
+	 *
+	 * @param index code index
+	 * @return <code>true</code> if the code is in the set, otherwise
+	 * <code>false</code>
+	 */
+	public boolean contains (int index)
+	{
+		return (words[index >>> WORD_SHIFT] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Gets the next code in the set, in index order. To walk the set, start at 0
+	 * and pass one more than the previous result, until -1 is returned.
+	 *
+	 * @param fromIndex index to start searching from
+	 * @return index of the next code at or after <code>fromIndex</code>, or -1
+	 * if there are no more
+	 */
+	public int nextIndex (int fromIndex)
+	{
+		int wordIndex = fromIndex >>> WORD_SHIFT;
+		if (wordIndex >= words.length)
+		{
+			return -1;
+		}
+
+		long word = words[wordIndex] & (-1L << fromIndex);
+		while (word == 0)
+		{
+			if (++wordIndex >= words.length)
+			{
+				return -1;
+			}
+			word = words[wordIndex];
+		}
+
+		return (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Copies the indexes of all codes in the set into an array, in index order.
+	 *
+	 * @param indexes array to fill; it must hold at least <code>getCount()</code>
+	 * entries
+	 * @return number of indexes copied
+	 */
+	public int copyIndexes (int[] indexes)
+	{
+		int n = 0;
+		for (int i = 0; i < words.length; i++)
+		{
+			long word = words[i];
+			while (word != 0)
+			{
+				indexes[n++] = (i << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+
+		return n;
+	}
+
+	/**
+	 * Removes every code that would not have given the same score as the puzzle
+	 * for a guess. In other words, keeps the codes that could still be the puzzle.
+	 *
+	 * @param guess packed guess code
+	 * @param score packed score the guess received
+	 */
+	public void retainConsistent (int guess, int score)
+	{
+		int numHoles = codeSpace.getConfig().getNumHoles();
+
+		/*
+		 * Use the feedback table if it's ready and the guess is a legal code. Otherwise score each
+		 * code directly.
+		 */
+		FeedbackTable table = FeedbackTables.getIfReady(codeSpace.getConfig());
+		int guessIndex = (table != null) ? codeSpace.indexOf(guess) : -1;
+
+		/*
+		 * The last code decoded, so runs of consecutive codes can be stepped through cheaply.
+		 */
+		int codeIndex = -2;
+		int code = 0;
+
+		int newCount = 0;
+		for (int i = 0; i < words.length; i++)
+		{
+			long word = words[i];
+			long keep = 0;
+
+			/*
+			 * Walk the set bits of this word, building a mask of the ones to keep.
+			 */
+			long remaining = word;
+			while (remaining != 0)
+			{
+				int bit = Long.numberOfTrailingZeros(remaining);
+				int index = (i << WORD_SHIFT) + bit;
+				remaining &= remaining - 1;
+
+				int codeScore;
+				if (guessIndex >= 0)
+				{
+					codeScore = table.getScore(guessIndex, index);
+				}
+				else
+				{
+					code = (index == codeIndex + 1) ? codeSpace.getNextCode(codeIndex, code) : codeSpace.getCode(index);
+					codeIndex = index;
+					codeScore = CodeScorer.score(code, guess, numHoles);
+				}
+				if (codeScore == score)
+				{
+					keep |= 1L << bit;
+				}
+			}
+
+			words[i] = keep;
+			newCount += Long.bitCount(keep);
+		}
+
+		count = newCount;
+	}
+}
@@ -0,0 +1,33 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for placing one color of
+ * clue pegs for a guess.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.CluePlacement")
+@Label("Clue Placement")
+@Category("Mastermind")
+@Description("Placing one color of clue pegs for a guess")
+@StackTrace(false)
+final class CluePlacementEvent extends Event
+{
+	@Label("Guess Row")
+	@Description("Index of the guess row, starting at 0")
+	int guessRow;
+
+	@Label("Clue")
+	String clue;
+
+	@Label("Clues Placed")
+	int numClues;
+}
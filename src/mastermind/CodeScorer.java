@@ -0,0 +1,193 @@
+package mastermind;
+
+/**
+ * Class that scores guesses against a puzzle. This is a utility class.
+ * <p>
+ * Codes (both puzzles and guesses) are packed into a primitive <code>int</code>,
+ * with each hole occupying a fixed width field of <code>BITS_PER_HOLE</code>
+ * bits. Hole 0 is in the low order bits. A field value of 0 means the hole is
+ * empty; color values start at 1.
+ * <p>
+ * Scores are also packed into a primitive <code>int</code>, with the number of
+ * black clue pegs in the high order field and the number of white clue pegs in
+ * the low order field. Nothing is allocated when scoring a guess.
+ *
+ * @author Jon
+ *
+ */
+public final class CodeScorer
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Number of bits used for each hole in a packed code.
+	 */
+	public static final int BITS_PER_HOLE = 4;
+
+	/**
+	 * Maximum number of holes that fit in a packed code.
+	 */
+	public static final int MAX_HOLES = Integer.SIZE / BITS_PER_HOLE;
+
+	/**
+	 * Maximum color value that fits in a hole of a packed code.
+	 */
+	public static final int MAX_COLOR_VALUE = (1 << BITS_PER_HOLE) - 1;
+
+	/**
+	 * Upper bound (exclusive) of all packed score values. This can be used to
+	 * size a histogram indexed by packed score.
+	 */
+	public static final int SCORE_LIMIT = 1 << (2 * BITS_PER_HOLE);
+
+    //---------------- Class variables -------------------------------------
+
+	private static final int HOLE_MASK = (1 << BITS_PER_HOLE) - 1;
+
+	/*
+	 * Color counts are kept in a long, one 4 bit field per color value. This works because we
+	 * never have more than 15 colors, and never more than 8 holes, so a count never overflows
+	 * its field.
+	 */
+	private static final int COUNT_BITS = 4;
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private CodeScorer ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Packs an array of color values into a code.
+	 *
+	 * @param values color values, one per hole
+	 * @return packed code
+	 */
+	public static int packCode (int[] values)
+	{
+		int code = 0;
+		for (int i = 0; i < values.length; i++)
+		{
+			code = setHoleValue(code, i, values[i]);
+		}
+
+		return code;
+	}
+
+	/**
+	 * Gets the color value for a hole of a packed code.
+	 *
+	 * @param code packed code
+	 * @param hole hole index
+	 * @return color value
+	 */
+	public static int getHoleValue (int code, int hole)
+	{
+		return (code >>> (hole * BITS_PER_HOLE)) & HOLE_MASK;
+	}
+
+	/**
+	 * Sets the color value for a hole of a packed code.
+	 *
+	 * @param code packed code
+	 * @param hole hole index
+	 * @param value color value
+	 * @return updated packed code
+	 */
+	public static int setHoleValue (int code, int hole, int value)
+	{
+		int shift = hole * BITS_PER_HOLE;
+		return (code & ~(HOLE_MASK << shift)) | ((value & HOLE_MASK) << shift);
+	}
+
+	/**
+	 * Scores a guess against a puzzle.
+	 *
+	 * @param puzzle packed puzzle code
+	 * @param guess packed guess code
+	 * @param numHoles number of holes in use
+	 * @return packed score
+	 */
+	public static int score (int puzzle, int guess, int numHoles)
+	{
+		int numBlack = 0;
+		long puzzleCounts = 0;
+		long guessCounts = 0;
+
+		/*
+		 * Count the black clue pegs by a simple comparison of each puzzle position with the
+		 * corresponding guess position. For positions that don't match, count the colors used by
+		 * the puzzle and the guess.
+		 */
+		for (int i = 0; i < numHoles; i++)
+		{
+			int shift = i * BITS_PER_HOLE;
+			int puzzleValue = (puzzle >>> shift) & HOLE_MASK;
+			int guessValue = (guess >>> shift) & HOLE_MASK;
+
+			if (puzzleValue == guessValue)
+			{
+				numBlack++;
+			}
+			else
+			{
+				puzzleCounts += 1L << (puzzleValue * COUNT_BITS);
+				guessCounts += 1L << (guessValue * COUNT_BITS);
+			}
+		}
+
+		/*
+		 * The number of white clue pegs is the sum over all colors of the smaller of the two counts.
+		 * Empty holes have a color value of 0, which never appears in a puzzle, so they never
+		 * match anything.
+		 */
+		int numWhite = 0;
+		while (puzzleCounts != 0 && guessCounts != 0)
+		{
+			numWhite += (int) Math.min(puzzleCounts & COUNT_MASK, guessCounts & COUNT_MASK);
+			puzzleCounts >>>= COUNT_BITS;
+			guessCounts >>>= COUNT_BITS;
+		}
+
+		return packScore(numBlack, numWhite);
+	}
+
+	/**
+	 * Packs the number of black and white clue pegs into a score.
+	 *
+	 * @param numBlack number of black clue pegs
+	 * @param numWhite number of white clue pegs
+	 * @return packed score
+	 */
+	public static int packScore (int numBlack, int numWhite)
+	{
+		return (numBlack << BITS_PER_HOLE) | numWhite;
+	}
+
+	/**
+	 * Gets the number of black clue pegs from a packed score.
+	 *
+	 * @param score packed score
+	 * @return number of black clue pegs
+	 */
+	public static int getNumBlack (int score)
+	{
+		return score >>> BITS_PER_HOLE;
+	}
+
+	/**
+	 * Gets the number of white clue pegs from a packed score.
+	 *
+	 * @param score packed score
+	 * @return number of white clue pegs
+	 */
+	public static int getNumWhite (int score)
+	{
+		return score & HOLE_MASK;
+	}
+}
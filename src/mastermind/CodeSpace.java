@@ -0,0 +1,273 @@
+package mastermind;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that enumerates every legal code for a puzzle configuration. Each code
+ * is assigned an index from 0 to <code>getSize() - 1</code>, so per-code data
+ * can be kept in primitive arrays indexed by code.
+ * <p>
+ * Codes are enumerated in order, treating hole 0 as the least significant
+ * digit. When duplicates are allowed, the index is just the code written in
+ * base <code>numValues</code>, so no table is needed. Otherwise the legal
+ * codes are kept in a table, which is at most a few million entries even for
+ * the largest boards.
+ * <p>
+ * With 8 holes, a packed code can have its sign bit set, so codes are always
+ * compared as unsigned numbers.
+ *
+ * @author Jon
+ *
+ */
+public final class CodeSpace
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Code spaces are immutable, so we only ever need one per configuration.
+	 */
+	private static final ConcurrentHashMap<GameConfig, CodeSpace> codeSpaces =
+			new ConcurrentHashMap<GameConfig, CodeSpace>();
+
+	private final GameConfig config;
+	private final int numHoles;
+	private final int numValues;
+	private final int size;
+
+	/*
+	 * Table of packed codes in index order. This is only used when duplicates are not allowed.
+	 */
+	private final int[] codes;
+
+	/*
+	 * Constructor.
+	 */
+	private CodeSpace (GameConfig config)
+	{
+		this.config = config;
+		numHoles = config.getNumHoles();
+		numValues = config.getNumValues();
+
+		/*
+		 * If duplicates are allowed, every combination of values is legal.
+		 */
+		if (config.getDupsAllowed() == true)
+		{
+			int allCodes = 1;
+			for (int i = 0; i < numHoles; i++)
+			{
+				allCodes *= numValues;
+			}
+
+			codes = null;
+			size = allCodes;
+		}
+
+		/*
+		 * Otherwise generate the codes without duplicates directly, rather than filtering every
+		 * combination. There are numValues! / (numValues - numHoles)! of them.
+		 */
+		else
+		{
+			int numLegal = 1;
+			for (int i = 0; i < numHoles; i++)
+			{
+				numLegal *= numValues - i;
+			}
+
+			codes = new int[numLegal];
+			size = enumerateUnique(numHoles - 1, 0, 0, 0);
+		}
+	}
+
+	/**
+	 * Gets the code space for a puzzle configuration.
+	 *
+	 * @param config puzzle configuration
+	 * @return code space
+	 */
+	public static CodeSpace forConfig (GameConfig config)
+	{
+		return codeSpaces.computeIfAbsent(config, CodeSpace::new);
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the puzzle configuration.
+	 *
+	 * @return puzzle configuration
+	 */
+	public GameConfig getConfig ()
+	{
+		return config;
+	}
+
+	/**
+	 * Gets the number of legal codes.
+	 *
+	 * @return number of legal codes
+	 */
+	public int getSize ()
+	{
+		return size;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets the packed code for an index.
+	 *
+	 * @param index code index
+	 * @return packed code
+	 */
+	public int getCode (int index)
+	{
+		return (codes != null) ? codes[index] : decode(index);
+	}
+
+	/**
+	 * Gets the packed code for the index after a given one. Walking the codes in
+	 * index order this way is much cheaper than decoding each index, since it
+	 * needs no division.
+	 *
+	 * @param index code index, less than <code>getSize() - 1</code>
+	 * @param code packed code for <code>index</code>
+	 * @return packed code for <code>index + 1</code>
+	 */
+	public int getNextCode (int index, int code)
+	{
+		if (codes != null)
+		{
+			return codes[index + 1];
+		}
+
+		/*
+		 * Add one to the code, treating hole 0 as the least significant digit.
+		 */
+		for (int i = 0; i < numHoles; i++)
+		{
+			int value = CodeScorer.getHoleValue(code, i);
+			if (value < numValues)
+			{
+				return CodeScorer.setHoleValue(code, i, value + 1);
+			}
+			code = CodeScorer.setHoleValue(code, i, 1);
+		}
+
+		return code;
+	}
+
+	/**
+	 * Gets the index for a packed code.
+	 *
+	 * @param code packed code
+	 * @return code index, or -1 if the code is not legal in this configuration
+	 */
+	public int indexOf (int code)
+	{
+		if (codes != null)
+		{
+			return findUnique(code);
+		}
+
+		int index = 0;
+		for (int i = numHoles - 1; i >= 0; i--)
+		{
+			int value = CodeScorer.getHoleValue(code, i);
+			if (value < 1 || value > numValues)
+			{
+				return -1;
+			}
+			index = index * numValues + (value - 1);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Scores a guess against a puzzle, both given by index.
+	 *
+	 * @param guessIndex guess code index
+	 * @param puzzleIndex puzzle code index
+	 * @return packed score
+	 */
+	public int score (int guessIndex, int puzzleIndex)
+	{
+		return CodeScorer.score(getCode(puzzleIndex), getCode(guessIndex), numHoles);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Convert a base numValues index into a packed code.
+	 */
+	private int decode (int index)
+	{
+		int code = 0;
+		for (int i = 0; i < numHoles; i++)
+		{
+			code = CodeScorer.setHoleValue(code, i, (index % numValues) + 1);
+			index /= numValues;
+		}
+
+		return code;
+	}
+
+	/*
+	 * Fill the table of codes without duplicates, starting at a given hole and working down to hole 0.
+	 * Trying values in increasing order, starting from the most significant hole, puts the codes in
+	 * increasing order. Returns the next free table entry.
+	 */
+	private int enumerateUnique (int hole, int code, int usedValues, int next)
+	{
+		for (int value = 1; value <= numValues; value++)
+		{
+			if ((usedValues & (1 << value)) != 0)
+			{
+				continue;
+			}
+
+			int newCode = CodeScorer.setHoleValue(code, hole, value);
+			if (hole == 0)
+			{
+				codes[next++] = newCode;
+			}
+			else
+			{
+				next = enumerateUnique(hole - 1, newCode, usedValues | (1 << value), next);
+			}
+		}
+
+		return next;
+	}
+
+	/*
+	 * Binary search the table of codes without duplicates, comparing codes as unsigned numbers.
+	 */
+	private int findUnique (int code)
+	{
+		int low = 0;
+		int high = codes.length - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			int compare = Integer.compareUnsigned(codes[middle], code);
+			if (compare < 0)
+			{
+				low = middle + 1;
+			}
+			else if (compare > 0)
+			{
+				high = middle - 1;
+			}
+			else
+			{
+				return middle;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,196 @@
+package mastermind;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class that implements an information theoretic strategy. Each guess is the
+ * code whose scores split the remaining candidates into partitions with the
+ * largest entropy, preferring codes that are still candidates, then the lowest
+ * code index.
+ * <p>
+ * Only one guess from each class of equivalent guesses is evaluated (see
+ * <code>GuessSymmetry</code>). Guesses are evaluated with a parallel stream.
+ * Each worker collects into its own <code>BestGuess</code>, which holds a
+ * primitive partition histogram, so nothing is shared between workers and
+ * nothing is boxed per guess.
+ *
+ * @author Jon
+ *
+ */
+public class EntropySolver implements Solver
+{
+
+	/**
+	 * Class constructor.
+	 */
+	public EntropySolver ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Chooses the next guess for a game using the maximum entropy strategy.
+	 *
+	 * @param session game in progress
+	 * @param cancelled checked once per guess evaluated
+	 * @return packed guess code
+	 * @throws CancellationException If the search was cancelled.
+	 */
+	@Override
+	public int chooseGuess (GameSession session, BooleanSupplier cancelled)
+	{
+		CodeSpace codeSpace = CodeSpace.forConfig(session.getConfig());
+		CandidateSet candidateSet = session.getCandidates();
+
+		/*
+		 * Get the codes that are still consistent with every guess and score so far.
+		 */
+		int[] candidates = new int[candidateSet.getCount()];
+		int numCandidates = candidateSet.copyIndexes(candidates);
+		int[] candidateCodes = new int[numCandidates];
+		for (int i = 0; i < numCandidates; i++)
+		{
+			candidateCodes[i] = codeSpace.getCode(candidates[i]);
+		}
+
+		/*
+		 * With one or two candidates left, just guess one of them.
+		 */
+		if (numCandidates <= 2)
+		{
+			return candidateCodes[0];
+		}
+
+		/*
+		 * Evaluate one guess from each class of equivalent guesses, in parallel.
+		 */
+		FeedbackTable table = FeedbackTables.request(codeSpace.getConfig());
+		BestGuess best = Arrays.stream(GuessSymmetry.getRepresentatives(session)).parallel().collect(
+				() -> new BestGuess(codeSpace, table, candidates, candidateCodes, numCandidates, candidateSet,
+						cancelled),
+				BestGuess::evaluate, BestGuess::combine);
+
+		return codeSpace.getCode(best.guessIndex);
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/*
+	 * Per worker result container. It holds the worker's partition histogram, and the best guess
+	 * the worker has seen.
+	 */
+	private static final class BestGuess
+	{
+		private final CodeSpace codeSpace;
+		private final FeedbackTable table;
+		private final int[] candidates;
+		private final int[] candidateCodes;
+		private final int numCandidates;
+		private final CandidateSet candidateSet;
+		private final BooleanSupplier cancelled;
+		private final int[] histogram = new int[CodeScorer.SCORE_LIMIT];
+
+		/*
+		 * Best guess so far. Instead of the entropy itself we keep the sum of c * log(c) over the
+		 * partition sizes c. The entropy is log(n) minus this sum divided by n, so the smallest sum
+		 * has the largest entropy, and we avoid a division per guess.
+		 */
+		private int guessIndex = -1;
+		private double weightedLogSum;
+		private boolean isCandidate;
+
+		private BestGuess (CodeSpace codeSpace, FeedbackTable table, int[] candidates, int[] candidateCodes,
+				int numCandidates, CandidateSet candidateSet, BooleanSupplier cancelled)
+		{
+			this.codeSpace = codeSpace;
+			this.table = table;
+			this.candidates = candidates;
+			this.candidateCodes = candidateCodes;
+			this.numCandidates = numCandidates;
+			this.candidateSet = candidateSet;
+			this.cancelled = cancelled;
+		}
+
+		/*
+		 * Evaluate one guess.
+		 */
+		private void evaluate (int index)
+		{
+			if (cancelled.getAsBoolean() == true)
+			{
+				throw new CancellationException();
+			}
+
+			int numHoles = codeSpace.getConfig().getNumHoles();
+			int guess = codeSpace.getCode(index);
+
+			/*
+			 * Count the size of each partition.
+			 */
+			for (int i = 0; i < numCandidates; i++)
+			{
+				int score = (table != null)
+						? table.getScore(index, candidates[i])
+						: CodeScorer.score(candidateCodes[i], guess, numHoles);
+				histogram[score]++;
+			}
+
+			/*
+			 * Sum c * log(c) over the partitions, clearing the histogram as we go.
+			 */
+			double sum = 0;
+			for (int i = 0; i < histogram.length; i++)
+			{
+				int count = histogram[i];
+				if (count > 1)
+				{
+					sum += count * Math.log(count);
+				}
+				histogram[i] = 0;
+			}
+
+			offer(index, sum, candidateSet.contains(index));
+		}
+
+		/*
+		 * Merge another worker's best guess into this one.
+		 */
+		private void combine (BestGuess other)
+		{
+			if (other.guessIndex >= 0)
+			{
+				offer(other.guessIndex, other.weightedLogSum, other.isCandidate);
+			}
+		}
+
+		/*
+		 * Keep a guess if it beats the best so far.
+		 */
+		private void offer (int index, double sum, boolean candidate)
+		{
+			boolean better;
+			if (guessIndex < 0 || sum != weightedLogSum)
+			{
+				better = guessIndex < 0 || sum < weightedLogSum;
+			}
+			else if (candidate != isCandidate)
+			{
+				better = candidate;
+			}
+			else
+			{
+				better = index < guessIndex;
+			}
+
+			if (better == true)
+			{
+				guessIndex = index;
+				weightedLogSum = sum;
+				isCandidate = candidate;
+			}
+		}
+	}
+}
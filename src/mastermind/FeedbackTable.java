@@ -0,0 +1,223 @@
+package mastermind;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Class that holds the precomputed score of every code against every other
+ * code for a puzzle configuration, so scoring becomes a single lookup.
+ * <p>
+ * Each score is stored as one byte (the packed score from
+ * <code>CodeScorer</code>). The table is square, with one row per guess index
+ * and one column per puzzle index. For 8 colors and 5 holes that is about
+ * 1 GB, so the table is kept off the heap in a memory mapped file, split into
+ * tiles of whole rows so no single buffer gets too large.
+ * <p>
+ * Use <code>FeedbackTables</code> to get a table; it builds tables lazily on a
+ * background thread and caches them on disk.
+ *
+ * @author Jon
+ *
+ */
+public final class FeedbackTable
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Cache file header: magic number, version, configuration and number of codes.
+	 */
+	private static final int FILE_MAGIC = 0x4D4D4654;
+	private static final int FILE_VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	/*
+	 * Maximum size of a single tile.
+	 */
+	private static final int MAX_TILE_BYTES = 1 << 26;
+
+	private final CodeSpace codeSpace;
+	private final int size;
+	private final int rowsPerTile;
+	private final ByteBuffer[] tiles;
+
+	/*
+	 * Constructor.
+	 */
+	private FeedbackTable (CodeSpace codeSpace, FileChannel channel, FileChannel.MapMode mode)
+			throws IOException
+	{
+		this.codeSpace = codeSpace;
+		size = codeSpace.getSize();
+		rowsPerTile = Math.max(1, MAX_TILE_BYTES / size);
+
+		/*
+		 * Map each tile of rows from the file.
+		 */
+		int numTiles = (size + rowsPerTile - 1) / rowsPerTile;
+		tiles = new ByteBuffer[numTiles];
+		for (int i = 0; i < numTiles; i++)
+		{
+			int numRows = Math.min(rowsPerTile, size - i * rowsPerTile);
+			long offset = HEADER_SIZE + (long) i * rowsPerTile * size;
+			tiles[i] = channel.map(mode, offset, (long) numRows * size);
+		}
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the code space the table is indexed by.
+	 *
+	 * @return code space
+	 */
+	public CodeSpace getCodeSpace ()
+	{
+		return codeSpace;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets the score of a guess against a puzzle, both given by index.
+	 *
+	 * @param guessIndex guess code index
+	 * @param puzzleIndex puzzle code index
+	 * @return packed score
+	 */
+	public int getScore (int guessIndex, int puzzleIndex)
+	{
+		return tiles[guessIndex / rowsPerTile].get((guessIndex % rowsPerTile) * size + puzzleIndex) & 0xFF;
+	}
+
+	/**
+	 * Loads a table from a cache file.
+	 *
+	 * @param codeSpace code space for the table
+	 * @param file cache file
+	 * @return table, or <code>null</code> if the file doesn't exist or doesn't
+	 * match the code space
+	 * @throws IOException If an error occurs trying to read the file.
+	 */
+	public static FeedbackTable load (CodeSpace codeSpace, Path file)
+			throws IOException
+	{
+		if (Files.exists(file) == false)
+		{
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			/*
+			 * Reject anything that isn't a complete table for this exact configuration, so it gets
+			 * rebuilt.
+			 */
+			long expectedLength = HEADER_SIZE + (long) codeSpace.getSize() * codeSpace.getSize();
+			if (channel.size() != expectedLength)
+			{
+				return null;
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			channel.read(header, 0);
+			header.flip();
+
+			if (header.remaining() < HEADER_SIZE || header.getInt() != FILE_MAGIC
+					|| header.getInt() != FILE_VERSION
+					|| header.getInt() != getConfigWord(codeSpace.getConfig())
+					|| header.getInt() != codeSpace.getSize())
+			{
+				return null;
+			}
+
+			/*
+			 * The mapping stays valid after the channel is closed.
+			 */
+			return new FeedbackTable(codeSpace, channel, FileChannel.MapMode.READ_ONLY);
+		}
+	}
+
+	/**
+	 * Builds a table into a cache file. The file is written under a temporary
+	 * name and renamed when complete, so a partial file is never loaded.
+	 *
+	 * @param codeSpace code space for the table
+	 * @param file cache file
+	 * @return table
+	 * @throws IOException If an error occurs trying to write the file.
+	 */
+	public static FeedbackTable build (CodeSpace codeSpace, Path file)
+			throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+		FeedbackTable table;
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			table = new FeedbackTable(codeSpace, channel, FileChannel.MapMode.READ_WRITE);
+			table.fill();
+
+			/*
+			 * Make sure the scores are on disk before writing the header that marks the file valid.
+			 */
+			for (ByteBuffer tile : table.tiles)
+			{
+				((MappedByteBuffer) tile).force();
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(FILE_MAGIC);
+			header.putInt(FILE_VERSION);
+			header.putInt(getConfigWord(codeSpace.getConfig()));
+			header.putInt(codeSpace.getSize());
+			header.rewind();
+			channel.write(header, 0);
+			channel.force(true);
+		}
+
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return table;
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Compute every score. Rows are independent, so we spread them over all cores. Each row is
+	 * only written by one thread, and we only use absolute puts.
+	 */
+	private void fill ()
+	{
+		IntStream.range(0, size).parallel().forEach(guessIndex ->
+		{
+			ByteBuffer tile = tiles[guessIndex / rowsPerTile];
+			int rowOffset = (guessIndex % rowsPerTile) * size;
+			int numHoles = codeSpace.getConfig().getNumHoles();
+			int guess = codeSpace.getCode(guessIndex);
+
+			for (int puzzleIndex = 0; puzzleIndex < size; puzzleIndex++)
+			{
+				int score = CodeScorer.score(codeSpace.getCode(puzzleIndex), guess, numHoles);
+				tile.put(rowOffset + puzzleIndex, (byte) score);
+			}
+		});
+	}
+
+	/*
+	 * Pack a configuration into a header word.
+	 */
+	private static int getConfigWord (GameConfig config)
+	{
+		return (config.getNumColors() << 16) | (config.getNumHoles() << 8)
+				| ((config.getDupsAllowed() == true) ? 2 : 0) | ((config.getBlanksAllowed() == true) ? 1 : 0);
+	}
+}
@@ -0,0 +1,159 @@
+package mastermind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class that manages the feedback tables for all puzzle configurations. This is
+ * a utility class.
+ * <p>
+ * A table is built the first time it's requested for a configuration, on a
+ * background thread. Built tables are saved in the game data directory, so
+ * later runs just map the file instead of rebuilding the table.
+ *
+ * @author Jon
+ *
+ */
+public final class FeedbackTables
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private static final String CACHE_FILE_PREFIX = "feedback-";
+	private static final String CACHE_FILE_SUFFIX = ".bin";
+
+	/*
+	 * Largest code space that gets a table. A table has one byte per pair of codes, so this caps a
+	 * table at 4 GB, which covers every configuration the game options offer. Larger boards are
+	 * always scored directly.
+	 */
+	private static final int MAX_TABLE_CODES = 1 << 16;
+
+	/*
+	 * One future per configuration, created the first time the configuration is requested.
+	 */
+	private static final ConcurrentHashMap<GameConfig, CompletableFuture<FeedbackTable>> tables =
+			new ConcurrentHashMap<GameConfig, CompletableFuture<FeedbackTable>>();
+
+	/*
+	 * Tables are built one at a time on a daemon thread, so a build never holds up the UI or
+	 * application exit. The build itself uses all cores.
+	 */
+	private static final ExecutorService builder = Executors.newSingleThreadExecutor(runnable ->
+	{
+		Thread thread = new Thread(runnable, "FeedbackTableBuilder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private FeedbackTables ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets the feedback table for a configuration, starting to load or build it
+	 * in the background if this is the first request.
+	 *
+	 * @param config puzzle configuration
+	 * @return future that completes with the table, or fails with an
+	 * <code>IllegalArgumentException</code> if the configuration has too many
+	 * codes for a table
+	 */
+	public static CompletableFuture<FeedbackTable> get (GameConfig config)
+	{
+		return tables.computeIfAbsent(config, key ->
+		{
+			if (CodeSpace.forConfig(key).getSize() > MAX_TABLE_CODES)
+			{
+				return CompletableFuture.failedFuture(
+						new IllegalArgumentException("Too many codes for a feedback table: " + key));
+			}
+
+			return CompletableFuture.supplyAsync(() -> loadOrBuild(key), builder);
+		});
+	}
+
+	/**
+	 * Gets the feedback table for a configuration if it's ready, without waiting,
+	 * and starts loading or building it in the background if this is the first
+	 * request. This is for code that knows it will make heavy use of the table,
+	 * such as the solvers.
+	 *
+	 * @param config puzzle configuration
+	 * @return table, or <code>null</code> if it's not ready yet or could not be
+	 * built
+	 */
+	public static FeedbackTable request (GameConfig config)
+	{
+		get(config);
+
+		return getIfReady(config);
+	}
+
+	/**
+	 * Gets the feedback table for a configuration if it's ready, without waiting.
+	 * This does not start loading or building the table, so hot paths can use
+	 * the table when someone has asked for it, without paying for a build.
+	 *
+	 * @param config puzzle configuration
+	 * @return table, or <code>null</code> if it has not been requested, is not
+	 * ready yet, or could not be built
+	 */
+	public static FeedbackTable getIfReady (GameConfig config)
+	{
+		CompletableFuture<FeedbackTable> future = tables.get(config);
+		if (future == null || future.isDone() == false || future.isCompletedExceptionally() == true)
+		{
+			return null;
+		}
+
+		return future.join();
+	}
+
+	/**
+	 * Gets the cache file used for a configuration.
+	 *
+	 * @param config puzzle configuration
+	 * @return cache file
+	 */
+	public static Path getCacheFile (GameConfig config)
+	{
+		return Options.getDataDirectory().resolve(CACHE_FILE_PREFIX + config.getName() + CACHE_FILE_SUFFIX);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Map the table from the cache file if it's valid, otherwise build it.
+	 */
+	private static FeedbackTable loadOrBuild (GameConfig config)
+	{
+		CodeSpace codeSpace = CodeSpace.forConfig(config);
+		Path cacheFile = getCacheFile(config);
+
+		try
+		{
+			FeedbackTable table = FeedbackTable.load(codeSpace, cacheFile);
+			if (table == null)
+			{
+				table = FeedbackTable.build(codeSpace, cacheFile);
+			}
+
+			return table;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
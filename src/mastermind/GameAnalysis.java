@@ -0,0 +1,186 @@
+package mastermind;
+
+/**
+ * Class that holds the analysis of one recorded game, as worked out by
+ * <code>ReplayEngine</code>. Analyses are immutable.
+ * <p>
+ * For each recorded guess, the analysis has:
+ * <ul>
+ * <li>whether the recorded score matches the score the game's rules give for
+ * the guess against the puzzle</li>
+ * <li>the information the guess gained, in bits: the base 2 log of the number
+ * of codes that could have been the puzzle before the guess, over the number
+ * after it</li>
+ * <li>whether the guess was wasted, meaning it could not have been the puzzle
+ * given the scores of the guesses before it</li>
+ * </ul>
+ * If a reference solver was used, the analysis also has the number of guesses
+ * the solver needs for the same puzzle.
+ *
+ * @author Jon
+ *
+ */
+public final class GameAnalysis
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Reference guess count when no reference solver was used.
+	 */
+	public static final int NO_REFERENCE = -1;
+
+    //---------------- Class variables -------------------------------------
+
+	private final long sequence;
+	private final GameRecord record;
+	private final double[] bits;
+	private final boolean[] wasted;
+	private final int numMismatches;
+	private final int referenceGuesses;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param sequence position of the record in the game log, starting at 0
+	 * @param record recorded game
+	 * @param bits information gained by each recorded guess, in bits
+	 * @param wasted whether each recorded guess was wasted
+	 * @param numMismatches number of recorded scores that don't match the rules
+	 * @param referenceGuesses number of guesses the reference solver needs, or
+	 * <code>NO_REFERENCE</code>
+	 */
+	public GameAnalysis (long sequence, GameRecord record, double[] bits, boolean[] wasted, int numMismatches,
+			int referenceGuesses)
+	{
+		this.sequence = sequence;
+		this.record = record;
+		this.bits = bits.clone();
+		this.wasted = wasted.clone();
+		this.numMismatches = numMismatches;
+		this.referenceGuesses = referenceGuesses;
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the position of the record in the game log.
+	 *
+	 * @return record sequence number, starting at 0
+	 */
+	public long getSequence ()
+	{
+		return sequence;
+	}
+
+	/**
+	 * Gets the recorded game.
+	 *
+	 * @return game record
+	 */
+	public GameRecord getRecord ()
+	{
+		return record;
+	}
+
+	/**
+	 * Gets the information gained by a recorded guess.
+	 *
+	 * @param index guess index, starting at 0
+	 * @return information gained, in bits
+	 */
+	public double getBits (int index)
+	{
+		return bits[index];
+	}
+
+	/**
+	 * Gets the total information gained by all the recorded guesses.
+	 *
+	 * @return information gained, in bits
+	 */
+	public double getTotalBits ()
+	{
+		double total = 0;
+		for (double guessBits : bits)
+		{
+			total += guessBits;
+		}
+
+		return total;
+	}
+
+	/**
+	 * Checks if a recorded guess was wasted.
+	 *
+	 * @param index guess index, starting at 0
+	 * @return true if the guess could not have been the puzzle
+	 */
+	public boolean isWasted (int index)
+	{
+		return wasted[index];
+	}
+
+	/**
+	 * Gets the number of wasted guesses.
+	 *
+	 * @return number of guesses that could not have been the puzzle
+	 */
+	public int getNumWasted ()
+	{
+		int numWasted = 0;
+		for (boolean guessWasted : wasted)
+		{
+			numWasted += (guessWasted == true) ? 1 : 0;
+		}
+
+		return numWasted;
+	}
+
+	/**
+	 * Gets the number of recorded scores that don't match the game's rules.
+	 *
+	 * @return number of mismatched scores
+	 */
+	public int getNumMismatches ()
+	{
+		return numMismatches;
+	}
+
+	/**
+	 * Checks if every recorded score matches the game's rules.
+	 *
+	 * @return true if the record verified
+	 */
+	public boolean isVerified ()
+	{
+		return numMismatches == 0;
+	}
+
+	/**
+	 * Gets the number of guesses the reference solver needs for the puzzle.
+	 *
+	 * @return reference guess count, or <code>NO_REFERENCE</code>
+	 */
+	public int getReferenceGuesses ()
+	{
+		return referenceGuesses;
+	}
+
+	/**
+	 * Gets how many more guesses the game took to win than the reference
+	 * solver needs. This is negative if the game did better.
+	 *
+	 * @return distance from the reference, or 0 if the game wasn't won or there
+	 * is no reference
+	 */
+	public int getDistance ()
+	{
+		if (referenceGuesses == NO_REFERENCE || record.getState() != GameSession.State.WON)
+		{
+			return 0;
+		}
+
+		return record.getGuessCount() - referenceGuesses;
+	}
+}
@@ -0,0 +1,202 @@
+package mastermind;
+
+/**
+ * Class that represents the puzzle configuration: the options that determine
+ * which codes are legal. The number of guesses allowed is not part of the
+ * configuration, since it doesn't affect the codes or their scores.
+ * <p>
+ * The engine supports any board up to <code>MAX_COLORS</code> colors and
+ * <code>MAX_HOLES</code> holes, which is more than the game options offer. The
+ * user interface is limited to the configurations in <code>Options</code>,
+ * since those are the ones with peg images.
+ * <p>
+ * Instances are immutable, so they can be used as keys for per-configuration
+ * caches and shared between threads.
+ *
+ * @author Jon
+ *
+ */
+public final class GameConfig
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Minimum number of colors.
+	 */
+	public static final int MIN_COLORS = 2;
+
+	/**
+	 * Maximum number of colors. With a blank, that's 11 hole values, which
+	 * still fit in the 4 bits per hole of a packed code.
+	 */
+	public static final int MAX_COLORS = 10;
+
+	/**
+	 * Maximum number of holes. This is as many as fit in a packed code.
+	 */
+	public static final int MAX_HOLES = CodeScorer.MAX_HOLES;
+
+    //---------------- Class variables -------------------------------------
+
+	private final int numColors;
+	private final int numHoles;
+	private final boolean dupsAllowed;
+	private final boolean blanksAllowed;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param numColors number of colors
+	 * @param numHoles number of holes
+	 * @param dupsAllowed duplicates allowed flag
+	 * @param blanksAllowed blanks allowed flag
+	 * @throws IllegalArgumentException If the number of colors or holes is out
+	 * of range, or there are not enough colors to fill the holes without
+	 * duplicates.
+	 */
+	public GameConfig (int numColors, int numHoles, boolean dupsAllowed, boolean blanksAllowed)
+	{
+		if (numColors < MIN_COLORS || numColors > MAX_COLORS)
+		{
+			throw new IllegalArgumentException("Unsupported number of colors " + numColors);
+		}
+
+		if (numHoles < 1 || numHoles > MAX_HOLES)
+		{
+			throw new IllegalArgumentException("Unsupported number of holes " + numHoles);
+		}
+
+		this.numColors = numColors;
+		this.numHoles = numHoles;
+		this.dupsAllowed = dupsAllowed;
+		this.blanksAllowed = blanksAllowed;
+
+		if (dupsAllowed == false && getNumValues() < numHoles)
+		{
+			throw new IllegalArgumentException("Not enough colors for " + numHoles + " unique holes");
+		}
+	}
+
+	/**
+	 * Creates a configuration from the current game options.
+	 *
+	 * @param options game options
+	 * @return puzzle configuration
+	 */
+	public static GameConfig fromOptions (Options options)
+	{
+		return fromSnapshot(options.getSnapshot());
+	}
+
+	/**
+	 * Creates a configuration from a snapshot of the game options.
+	 *
+	 * @param snapshot game options
+	 * @return puzzle configuration
+	 */
+	public static GameConfig fromSnapshot (OptionsSnapshot snapshot)
+	{
+		return new GameConfig(snapshot.getNumColors(), snapshot.getNumHoles(),
+				snapshot.getDupsAllowed(), snapshot.getBlanksAllowed());
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the number of colors.
+	 *
+	 * @return number of colors
+	 */
+	public int getNumColors ()
+	{
+		return numColors;
+	}
+
+	/**
+	 * Gets the number of holes.
+	 *
+	 * @return number of holes
+	 */
+	public int getNumHoles ()
+	{
+		return numHoles;
+	}
+
+	/**
+	 * Gets the duplicates allowed flag.
+	 *
+	 * @return duplicates allowed flag
+	 */
+	public boolean getDupsAllowed ()
+	{
+		return dupsAllowed;
+	}
+
+	/**
+	 * Gets the blanks allowed flag.
+	 *
+	 * @return blanks allowed flag
+	 */
+	public boolean getBlanksAllowed ()
+	{
+		return blanksAllowed;
+	}
+
+	/**
+	 * Gets the number of distinct values a hole can hold. This is the number of
+	 * colors, plus one if blanks are allowed. Hole values run from 1 to this
+	 * number.
+	 *
+	 * @return number of hole values
+	 */
+	public int getNumValues ()
+	{
+		return numColors + ((blanksAllowed == true) ? 1 : 0);
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets a short name for this configuration, suitable for use in file names.
+	 *
+	 * @return configuration name
+	 */
+	public String getName ()
+	{
+		return numColors + "x" + numHoles
+				+ ((dupsAllowed == true) ? "-dups" : "-nodups")
+				+ ((blanksAllowed == true) ? "-blanks" : "-noblanks");
+	}
+
+	@Override
+	public boolean equals (Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+
+		if (!(obj instanceof GameConfig))
+		{
+			return false;
+		}
+
+		GameConfig other = (GameConfig) obj;
+		return numColors == other.numColors && numHoles == other.numHoles
+				&& dupsAllowed == other.dupsAllowed && blanksAllowed == other.blanksAllowed;
+	}
+
+	@Override
+	public int hashCode ()
+	{
+		return (numColors * 31 + numHoles) * 4
+				+ ((dupsAllowed == true) ? 2 : 0) + ((blanksAllowed == true) ? 1 : 0);
+	}
+
+	@Override
+	public String toString ()
+	{
+		return getName();
+	}
+}
@@ -0,0 +1,636 @@
+package mastermind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that keeps a log of finished games, as <code>GameRecord</code>s, in a
+ * directory of append only segment files.
+ * <p>
+ * Each segment holds a header and a fixed number of fixed width record slots,
+ * and is written through a <code>MappedByteBuffer</code>. Segments are named
+ * in order, <code>games-000000.log</code>, <code>games-000001.log</code>, and
+ * so on; when one fills up, the next one is started. Records are never changed
+ * once written.
+ * <p>
+ * <code>append</code> only puts the record on a queue, so it's cheap enough
+ * for the event thread and for simulations playing thousands of games a
+ * second. A single daemon thread takes everything waiting on the queue, writes
+ * it, and forces it to disk once for the whole batch, so the cost of forcing is
+ * shared by every game that arrived while the last batch was written. If the
+ * queue fills up, <code>append</code> waits for the writer.
+ * <p>
+ * The log file is opened by the writer thread, not by the thread creating the
+ * log, so creating a log does no I/O.
+ * <p>
+ * Only one log can write to a directory at a time. The writer holds a lock on
+ * a lock file in the directory while it runs. A log whose directory is
+ * already being written, by this process or another, fails as if it had a
+ * write error.
+ *
+ * @author Jon
+ *
+ */
+public final class GameLog
+		implements AutoCloseable
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Name of the game log directory, within the game data directory.
+	 */
+	public static final String DIRECTORY_NAME = "games";
+
+	/**
+	 * Number of record slots in a segment.
+	 */
+	public static final int SEGMENT_RECORDS = 1 << 14;
+
+	/**
+	 * Size of a segment header in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+
+    //---------------- Class variables -------------------------------------
+
+	private static final String SEGMENT_PREFIX = "games-";
+	private static final String SEGMENT_SUFFIX = ".log";
+	private static final String LOCK_FILE_NAME = "games.lock";
+
+	/*
+	 * Segment header: magic number, version, record size and number of record slots.
+	 */
+	private static final int FILE_MAGIC = 0x4D4D474C;
+	private static final int FILE_VERSION = 1;
+
+	private static final int QUEUE_CAPACITY = 1 << 16;
+
+	/*
+	 * Record that tells the writer thread to stop.
+	 */
+	private static final GameRecord CLOSE_RECORD =
+			new GameRecord(new GameConfig(2, 1, true, false), 1, 0, GameSession.State.IN_PROGRESS, 0,
+					new int[0], new int[0]);
+
+	/*
+	 * Log used by the game, opened the first time it's needed.
+	 */
+	private static GameLog defaultLog = null;
+
+	/*
+	 * Directories being written by a log in this process.
+	 */
+	private static final Set<Path> lockedDirectories = ConcurrentHashMap.newKeySet();
+
+	private final Path directory;
+	private final BlockingQueue<GameRecord> queue = new ArrayBlockingQueue<GameRecord>(QUEUE_CAPACITY);
+	private final Thread writer;
+
+	/*
+	 * The current segment, and the next free slot in it. These are only used by the writer thread.
+	 */
+	private int segmentNumber;
+	private MappedByteBuffer segment = null;
+	private int nextSlot;
+
+	/*
+	 * Number of records appended, put on the queue and written so far, and the error that stopped
+	 * the writer, if any. These are guarded by the log's lock.
+	 */
+	private long numAppended = 0;
+	private long numQueued = 0;
+	private long numWritten = 0;
+	private IOException fault = null;
+	private boolean closed = false;
+
+	/*
+	 * Constructor.
+	 */
+	private GameLog (Path directory)
+	{
+		this.directory = directory;
+
+		writer = new Thread(this::writeRecords, "GameLogWriter");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Opens a game log in a directory, creating the directory if needed. New
+	 * records are appended after the ones already there.
+	 *
+	 * @param directory game log directory
+	 * @return game log
+	 */
+	public static GameLog open (Path directory)
+	{
+		return new GameLog(directory);
+	}
+
+	/**
+	 * Gets the game log in the game data directory, opening it the first time.
+	 *
+	 * @return game log
+	 */
+	public static synchronized GameLog getDefault ()
+	{
+		if (defaultLog == null)
+		{
+			defaultLog = new GameLog(getDefaultDirectory());
+		}
+
+		return defaultLog;
+	}
+
+	/**
+	 * Closes the game log in the game data directory, if it was opened. Games
+	 * already added are written first.
+	 */
+	public static synchronized void closeDefault ()
+	{
+		if (defaultLog != null)
+		{
+			defaultLog.close();
+			defaultLog = null;
+		}
+	}
+
+	/**
+	 * Gets the game log directory in the game data directory.
+	 *
+	 * @return game log directory
+	 */
+	public static Path getDefaultDirectory ()
+	{
+		return Options.getDataDirectory().resolve(DIRECTORY_NAME);
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the directory the log is kept in.
+	 *
+	 * @return game log directory
+	 */
+	public Path getDirectory ()
+	{
+		return directory;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Adds a game to the log. The record is written in the background.
+	 *
+	 * @param session game to add
+	 * @throws UncheckedIOException If an earlier write failed.
+	 * @throws IllegalStateException If the log has been closed.
+	 */
+	public void append (GameSession session)
+	{
+		append(GameRecord.fromSession(session));
+	}
+
+	/**
+	 * Adds a record to the log. The record is written in the background.
+	 *
+	 * @param record record to add
+	 * @throws UncheckedIOException If an earlier write failed.
+	 * @throws IllegalStateException If the log has been closed.
+	 */
+	public void append (GameRecord record)
+	{
+		synchronized (this)
+		{
+			checkOpen();
+			numAppended++;
+		}
+
+		try
+		{
+			queue.put(record);
+		}
+		catch (InterruptedException e)
+		{
+			synchronized (this)
+			{
+				numAppended--;
+				notifyAll();
+			}
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted adding a game to the log", e);
+		}
+
+		synchronized (this)
+		{
+			numQueued++;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until every record added so far is on disk.
+	 *
+	 * @throws UncheckedIOException If a write failed.
+	 * @throws InterruptedException If the wait is interrupted.
+	 */
+	public synchronized void flush ()
+			throws InterruptedException
+	{
+		long target = numAppended;
+		while (numWritten < target && fault == null)
+		{
+			wait();
+		}
+
+		if (fault != null)
+		{
+			throw new UncheckedIOException(fault);
+		}
+	}
+
+	/**
+	 * Writes every record added so far, and stops the writer thread. Records
+	 * can't be added after the log is closed.
+	 *
+	 * @throws UncheckedIOException If a write failed.
+	 */
+	@Override
+	public void close ()
+	{
+		synchronized (this)
+		{
+			if (closed == true)
+			{
+				return;
+			}
+			closed = true;
+		}
+
+		/*
+		 * The close record goes after every record already appended, so wait for those to reach the
+		 * queue first. The writer then finishes them before it stops.
+		 */
+		boolean interrupted = false;
+		boolean closeQueued = false;
+		while (true)
+		{
+			try
+			{
+				if (closeQueued == false)
+				{
+					synchronized (this)
+					{
+						while (numQueued < numAppended)
+						{
+							wait();
+						}
+					}
+
+					queue.put(CLOSE_RECORD);
+					closeQueued = true;
+				}
+
+				writer.join();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+
+		if (interrupted == true)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		synchronized (this)
+		{
+			if (fault != null)
+			{
+				throw new UncheckedIOException(fault);
+			}
+		}
+	}
+
+	/**
+	 * Gets the segment files in a game log directory, in order.
+	 *
+	 * @param directory game log directory
+	 * @return segment files, empty if the directory doesn't exist
+	 * @throws IOException If an error occurs trying to list the directory.
+	 */
+	public static List<Path> getSegments (Path directory)
+			throws IOException
+	{
+		List<Path> segments = new ArrayList<Path>();
+		if (Files.isDirectory(directory) == false)
+		{
+			return segments;
+		}
+
+		try (DirectoryStream<Path> stream =
+				Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+		{
+			for (Path file : stream)
+			{
+				if (getSegmentNumber(file) >= 0)
+				{
+					segments.add(file);
+				}
+			}
+		}
+
+		segments.sort((a, b) -> Integer.compare(getSegmentNumber(a), getSegmentNumber(b)));
+		return segments;
+	}
+
+	/**
+	 * Checks if a segment header is valid for this version of the log.
+	 *
+	 * @param header buffer positioned at the start of the header
+	 * @return true if the header is valid
+	 */
+	public static boolean isValidHeader (ByteBuffer header)
+	{
+		return header.remaining() >= HEADER_SIZE && header.getInt() == FILE_MAGIC
+				&& header.getInt() == FILE_VERSION && header.getInt() == GameRecord.RECORD_SIZE
+				&& header.getInt() == SEGMENT_RECORDS;
+	}
+
+	/**
+	 * Gets the size of a segment file in bytes.
+	 *
+	 * @return segment size
+	 */
+	public static long getSegmentSize ()
+	{
+		return HEADER_SIZE + (long) SEGMENT_RECORDS * GameRecord.RECORD_SIZE;
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Make sure records can still be added. Must be called holding the log's lock.
+	 */
+	private void checkOpen ()
+	{
+		if (fault != null)
+		{
+			throw new UncheckedIOException(fault);
+		}
+		if (closed == true)
+		{
+			throw new IllegalStateException("Game log is closed");
+		}
+	}
+
+	/*
+	 * Writer thread: lock the directory, then write records until the close record arrives.
+	 */
+	private void writeRecords ()
+	{
+		try
+		{
+			writeLocked();
+		}
+		catch (IOException e)
+		{
+			stopWriting(e);
+		}
+		catch (InterruptedException e)
+		{
+			stopWriting(new IOException("Game log writer interrupted", e));
+		}
+
+		/*
+		 * Anything else, such as an error forcing the mapping to disk or storing into it when the disk
+		 * is full, still has to stop the writer properly, or everyone waiting on it waits forever.
+		 */
+		catch (RuntimeException | Error e)
+		{
+			stopWriting(new IOException("Game log writer failed", e));
+		}
+	}
+
+	/*
+	 * Write records while holding the directory's lock. Another log in this process is kept out by
+	 * the set of locked directories, since it mustn't even open the lock file: on some systems,
+	 * closing any channel on the file releases every lock this process holds on it.
+	 */
+	private void writeLocked ()
+			throws IOException, InterruptedException
+	{
+		Path lockKey = directory.toAbsolutePath().normalize();
+		if (lockedDirectories.add(lockKey) == false)
+		{
+			throw new IOException("Game log " + directory + " is already being written by another log");
+		}
+
+		try
+		{
+			Files.createDirectories(directory);
+			try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+			{
+				if (lockChannel.tryLock() == null)
+				{
+					throw new IOException(
+							"Game log " + directory + " is already being written by another process");
+				}
+
+				openLastSegment();
+				writeBatches();
+			}
+		}
+		finally
+		{
+			lockedDirectories.remove(lockKey);
+		}
+	}
+
+	/*
+	 * Take whatever is queued, write it, and force it to disk, until the close record arrives.
+	 */
+	private void writeBatches ()
+			throws IOException, InterruptedException
+	{
+		List<GameRecord> batch = new ArrayList<GameRecord>();
+		boolean closing = false;
+
+		while (closing == false)
+		{
+			batch.add(queue.take());
+			queue.drainTo(batch);
+
+			int numRecords = 0;
+			int firstSlot = nextSlot;
+			for (GameRecord record : batch)
+			{
+				if (record == CLOSE_RECORD)
+				{
+					closing = true;
+					break;
+				}
+
+				/*
+				 * Start a new segment when this one is full, forcing what's been written to it.
+				 */
+				if (nextSlot == SEGMENT_RECORDS)
+				{
+					forceSlots(firstSlot, nextSlot);
+					startSegment(segmentNumber + 1);
+					firstSlot = nextSlot;
+				}
+
+				record.write(segment, getSlotOffset(nextSlot));
+				nextSlot++;
+				numRecords++;
+			}
+
+			forceSlots(firstSlot, nextSlot);
+			batch.clear();
+
+			synchronized (this)
+			{
+				numWritten += numRecords;
+				notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * Record the error that stopped the writer. Anything still queued is thrown away, so no one
+	 * waits forever for room on the queue.
+	 */
+	private void stopWriting (IOException e)
+	{
+		synchronized (this)
+		{
+			fault = e;
+			notifyAll();
+		}
+
+		queue.clear();
+	}
+
+	/*
+	 * Open the last segment and find its first free slot, or start the first segment.
+	 */
+	private void openLastSegment ()
+			throws IOException
+	{
+		List<Path> segments = getSegments(directory);
+		if (segments.isEmpty() == true)
+		{
+			startSegment(0);
+			return;
+		}
+
+		/*
+		 * A segment with a bad header is left alone, and the log carries on in a new one after it.
+		 */
+		Path file = segments.get(segments.size() - 1);
+		int number = getSegmentNumber(file);
+		MappedByteBuffer buffer = mapSegment(file);
+		if (isValidHeader(buffer.duplicate()) == false)
+		{
+			startSegment(number + 1);
+			return;
+		}
+
+		segmentNumber = number;
+		segment = buffer;
+		nextSlot = 0;
+		while (nextSlot < SEGMENT_RECORDS && GameRecord.isPresent(segment, getSlotOffset(nextSlot)) == true)
+		{
+			nextSlot++;
+		}
+	}
+
+	/*
+	 * Create a new segment, and write its header.
+	 */
+	private void startSegment (int number)
+			throws IOException
+	{
+		Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+		MappedByteBuffer buffer = mapSegment(file);
+
+		buffer.putInt(0, FILE_MAGIC);
+		buffer.putInt(4, FILE_VERSION);
+		buffer.putInt(8, GameRecord.RECORD_SIZE);
+		buffer.putInt(12, SEGMENT_RECORDS);
+		buffer.force(0, HEADER_SIZE);
+
+		segmentNumber = number;
+		segment = buffer;
+		nextSlot = 0;
+	}
+
+	/*
+	 * Map a whole segment file, creating it if needed. The mapping stays valid after the channel is
+	 * closed.
+	 */
+	private static MappedByteBuffer mapSegment (Path file)
+			throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE))
+		{
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, getSegmentSize());
+		}
+	}
+
+	/*
+	 * Force a range of record slots in the current segment to disk.
+	 */
+	private void forceSlots (int fromSlot, int toSlot)
+	{
+		if (toSlot > fromSlot)
+		{
+			segment.force(getSlotOffset(fromSlot), (toSlot - fromSlot) * GameRecord.RECORD_SIZE);
+		}
+	}
+
+	/*
+	 * Get the offset of a record slot in a segment.
+	 */
+	private static int getSlotOffset (int slot)
+	{
+		return HEADER_SIZE + slot * GameRecord.RECORD_SIZE;
+	}
+
+	/*
+	 * Get the number of a segment from its file name.
+	 */
+	private static int getSegmentNumber (Path file)
+	{
+		String name = file.getFileName().toString();
+		try
+		{
+			return Integer.parseInt(
+					name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		}
+		catch (NumberFormatException | IndexOutOfBoundsException e)
+		{
+			return -1;
+		}
+	}
+}
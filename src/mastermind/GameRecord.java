@@ -0,0 +1,330 @@
+package mastermind;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class that holds the record of a game kept in the game log: the puzzle
+ * configuration, the puzzle, and each guess with its score. Records are
+ * immutable.
+ * <p>
+ * A record is stored as a fixed width binary record of
+ * <code>RECORD_SIZE</code> bytes:
+ * <ul>
+ * <li>byte 0: flags: record present, duplicates allowed, blanks allowed</li>
+ * <li>bytes 1-3: number of colors, number of holes, game state</li>
+ * <li>bytes 4-7: number of guesses allowed, and number of guesses made, as
+ * unsigned shorts</li>
+ * <li>bytes 8-11: packed puzzle code</li>
+ * <li>bytes 12-15: reserved</li>
+ * <li>bytes 16-79: up to <code>MAX_GUESSES</code> packed guess codes</li>
+ * <li>bytes 80-95: the packed score of each guess</li>
+ * </ul>
+ * Games with more than <code>MAX_GUESSES</code> guesses keep only the first
+ * ones, but still record how many guesses were made. A record slot that's all
+ * zeros is empty, since the present flag is never zero in a written record.
+ * A slot whose present flag is set but whose other fields don't make a valid
+ * record is corrupt, and reads as <code>CORRUPT</code>.
+ *
+ * @author Jon
+ *
+ */
+public final class GameRecord
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Size of a stored record in bytes.
+	 */
+	public static final int RECORD_SIZE = 96;
+
+	/**
+	 * Maximum number of guesses kept in a record.
+	 */
+	public static final int MAX_GUESSES = 16;
+
+	/**
+	 * Record read from a slot that is marked present but doesn't hold a valid
+	 * record. It's only meant to be compared against, by identity.
+	 */
+	public static final GameRecord CORRUPT =
+			new GameRecord(new GameConfig(2, 1, true, false), 1, 0, GameSession.State.IN_PROGRESS, 0,
+					new int[0], new int[0]);
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Flag bits.
+	 */
+	private static final int FLAG_PRESENT = 1 << 0;
+	private static final int FLAG_DUPS_ALLOWED = 1 << 1;
+	private static final int FLAG_BLANKS_ALLOWED = 1 << 2;
+	private static final int FLAG_ALL = FLAG_PRESENT | FLAG_DUPS_ALLOWED | FLAG_BLANKS_ALLOWED;
+
+	/*
+	 * Field offsets within a record.
+	 */
+	private static final int OFFSET_FLAGS = 0;
+	private static final int OFFSET_NUM_COLORS = 1;
+	private static final int OFFSET_NUM_HOLES = 2;
+	private static final int OFFSET_STATE = 3;
+	private static final int OFFSET_NUM_GUESSES = 4;
+	private static final int OFFSET_GUESS_COUNT = 6;
+	private static final int OFFSET_PUZZLE = 8;
+	private static final int OFFSET_GUESSES = 16;
+	private static final int OFFSET_SCORES = OFFSET_GUESSES + MAX_GUESSES * Integer.BYTES;
+
+	private static final GameSession.State[] STATES = GameSession.State.values();
+
+	private final GameConfig config;
+	private final int numGuesses;
+	private final int puzzle;
+	private final GameSession.State state;
+	private final int guessCount;
+	private final int[] guesses;
+	private final int[] scores;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param config puzzle configuration
+	 * @param numGuesses number of guesses allowed
+	 * @param puzzle packed puzzle code
+	 * @param state game state
+	 * @param guessCount number of guesses made
+	 * @param guesses packed guess codes, at most <code>MAX_GUESSES</code>
+	 * @param scores packed scores of the guesses
+	 */
+	public GameRecord (GameConfig config, int numGuesses, int puzzle, GameSession.State state, int guessCount,
+			int[] guesses, int[] scores)
+	{
+		if (guesses.length > MAX_GUESSES || scores.length != guesses.length || guesses.length > guessCount)
+		{
+			throw new IllegalArgumentException("Guesses don't match the guess count " + guessCount);
+		}
+
+		this.config = config;
+		this.numGuesses = numGuesses;
+		this.puzzle = puzzle;
+		this.state = state;
+		this.guessCount = guessCount;
+		this.guesses = guesses.clone();
+		this.scores = scores.clone();
+	}
+
+	/**
+	 * Creates a record of a game, as it stands.
+	 *
+	 * @param session game
+	 * @return record of the game
+	 */
+	public static GameRecord fromSession (GameSession session)
+	{
+		int guessCount = session.getGuessCount();
+		int numKept = Math.min(guessCount, MAX_GUESSES);
+
+		int[] guesses = new int[numKept];
+		int[] scores = new int[numKept];
+		for (int i = 0; i < numKept; i++)
+		{
+			guesses[i] = session.getGuess(i);
+			scores[i] = session.getScore(i);
+		}
+
+		return new GameRecord(session.getConfig(), session.getNumGuesses(), session.getPuzzle(),
+				session.getState(), guessCount, guesses, scores);
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the puzzle configuration.
+	 *
+	 * @return puzzle configuration
+	 */
+	public GameConfig getConfig ()
+	{
+		return config;
+	}
+
+	/**
+	 * Gets the number of guesses allowed.
+	 *
+	 * @return number of guesses allowed
+	 */
+	public int getNumGuesses ()
+	{
+		return numGuesses;
+	}
+
+	/**
+	 * Gets the puzzle.
+	 *
+	 * @return packed puzzle code
+	 */
+	public int getPuzzle ()
+	{
+		return puzzle;
+	}
+
+	/**
+	 * Gets the state of the game when it was recorded.
+	 *
+	 * @return game state
+	 */
+	public GameSession.State getState ()
+	{
+		return state;
+	}
+
+	/**
+	 * Gets the number of guesses made.
+	 *
+	 * @return number of guesses made
+	 */
+	public int getGuessCount ()
+	{
+		return guessCount;
+	}
+
+	/**
+	 * Gets the number of guesses kept in the record. This is less than the
+	 * number made only if more than <code>MAX_GUESSES</code> were made.
+	 *
+	 * @return number of guesses kept
+	 */
+	public int getNumRecordedGuesses ()
+	{
+		return guesses.length;
+	}
+
+	/**
+	 * Gets a recorded guess.
+	 *
+	 * @param index guess index, starting at 0
+	 * @return packed guess code
+	 */
+	public int getGuess (int index)
+	{
+		return guesses[index];
+	}
+
+	/**
+	 * Gets the score of a recorded guess.
+	 *
+	 * @param index guess index, starting at 0
+	 * @return packed score
+	 */
+	public int getScore (int index)
+	{
+		return scores[index];
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Writes the record into a buffer. The present flag is written last, so
+	 * another thread reading the buffer never sees a record that's only partly
+	 * written. That doesn't hold for a mapped file after a crash: the pages of
+	 * a mapping can reach the disk in any order before they're forced, and a
+	 * record crosses page boundaries, so the present flag can be on disk
+	 * without the rest of the record. <code>read</code> reports such a record
+	 * as <code>CORRUPT</code> when its fields aren't valid.
+	 *
+	 * @param buffer buffer to write to
+	 * @param offset offset of the record in the buffer
+	 */
+	public void write (ByteBuffer buffer, int offset)
+	{
+		buffer.put(offset + OFFSET_NUM_COLORS, (byte) config.getNumColors());
+		buffer.put(offset + OFFSET_NUM_HOLES, (byte) config.getNumHoles());
+		buffer.put(offset + OFFSET_STATE, (byte) state.ordinal());
+		buffer.putShort(offset + OFFSET_NUM_GUESSES, (short) Math.min(numGuesses, 0xFFFF));
+		buffer.putShort(offset + OFFSET_GUESS_COUNT, (short) Math.min(guessCount, 0xFFFF));
+		buffer.putInt(offset + OFFSET_PUZZLE, puzzle);
+
+		for (int i = 0; i < MAX_GUESSES; i++)
+		{
+			boolean kept = i < guesses.length;
+			buffer.putInt(offset + OFFSET_GUESSES + i * Integer.BYTES, (kept == true) ? guesses[i] : 0);
+			buffer.put(offset + OFFSET_SCORES + i, (byte) ((kept == true) ? scores[i] : 0));
+		}
+
+		int flags = FLAG_PRESENT;
+		flags |= (config.getDupsAllowed() == true) ? FLAG_DUPS_ALLOWED : 0;
+		flags |= (config.getBlanksAllowed() == true) ? FLAG_BLANKS_ALLOWED : 0;
+		buffer.put(offset + OFFSET_FLAGS, (byte) flags);
+	}
+
+	/**
+	 * Checks if a record slot in a buffer holds a record.
+	 *
+	 * @param buffer buffer to check
+	 * @param offset offset of the record slot in the buffer
+	 * @return true if the slot holds a record, false if it's empty
+	 */
+	public static boolean isPresent (ByteBuffer buffer, int offset)
+	{
+		return (buffer.get(offset + OFFSET_FLAGS) & FLAG_PRESENT) != 0;
+	}
+
+	/**
+	 * Reads a record from a buffer.
+	 *
+	 * @param buffer buffer to read from
+	 * @param offset offset of the record in the buffer
+	 * @return record, <code>null</code> if the slot is empty, or
+	 * <code>CORRUPT</code> if the slot is marked present but doesn't hold a
+	 * valid record
+	 */
+	public static GameRecord read (ByteBuffer buffer, int offset)
+	{
+		int flags = buffer.get(offset + OFFSET_FLAGS) & 0xFF;
+		if ((flags & FLAG_PRESENT) == 0)
+		{
+			return null;
+		}
+
+		/*
+		 * Check the fields before using them.
+		 */
+		int state = buffer.get(offset + OFFSET_STATE) & 0xFF;
+		int numGuesses = buffer.getShort(offset + OFFSET_NUM_GUESSES) & 0xFFFF;
+		int guessCount = buffer.getShort(offset + OFFSET_GUESS_COUNT) & 0xFFFF;
+		if ((flags & ~FLAG_ALL) != 0 || state >= STATES.length || numGuesses < 1 || guessCount > numGuesses)
+		{
+			return CORRUPT;
+		}
+
+		GameConfig config;
+		try
+		{
+			config = new GameConfig(buffer.get(offset + OFFSET_NUM_COLORS), buffer.get(offset + OFFSET_NUM_HOLES),
+					(flags & FLAG_DUPS_ALLOWED) != 0, (flags & FLAG_BLANKS_ALLOWED) != 0);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return CORRUPT;
+		}
+
+		int numKept = Math.min(guessCount, MAX_GUESSES);
+
+		int[] guesses = new int[numKept];
+		int[] scores = new int[numKept];
+		for (int i = 0; i < numKept; i++)
+		{
+			guesses[i] = buffer.getInt(offset + OFFSET_GUESSES + i * Integer.BYTES);
+			scores[i] = buffer.get(offset + OFFSET_SCORES + i) & 0xFF;
+		}
+
+		return new GameRecord(config, numGuesses, buffer.getInt(offset + OFFSET_PUZZLE), STATES[state],
+				guessCount, guesses, scores);
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "GameRecord[" + config.getName() + ", puzzle " + Integer.toHexString(puzzle) + ", " + state
+				+ " after " + guessCount + " of " + numGuesses + " guesses]";
+	}
+}
@@ -0,0 +1,498 @@
+package mastermind;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Class that serves games over HTTP, so many players can play at once without
+ * a Pivot display. It uses the JDK's built in HTTP server, and handles each
+ * request on its own virtual thread. Games are plain <code>GameSession</code>
+ * objects, so they follow exactly the same rules as the desktop game.
+ * <p>
+ * The requests are:
+ * <ul>
+ * <li><code>POST /games</code> starts a new game. The optional query
+ * parameters <code>colors</code>, <code>holes</code>, <code>guesses</code>,
+ * <code>dups</code> and <code>blanks</code> override the server's default
+ * configuration. A game can have at most as many guesses as the game
+ * options allow.</li>
+ * <li><code>POST /games/{id}/guess?code=...</code> submits a guess. The code
+ * has one hex digit per hole, hole 0 first, for example <code>12345</code>.
+ * The response has the number of black and white pegs.</li>
+ * <li><code>GET /games/{id}</code> gets the state of a game.</li>
+ * <li><code>DELETE /games/{id}</code> ends a game.</li>
+ * </ul>
+ * Responses are small JSON objects. The puzzle is only included once the game
+ * is over. Games that haven't been used for the idle timeout are removed.
+ * <p>
+ * Usage: <code>GameServer [port] [idle timeout seconds]</code>
+ *
+ * @author Jon
+ *
+ */
+public final class GameServer
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private static final String CONTEXT_PATH = "/games";
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 600;
+
+	/*
+	 * How many times per idle timeout the expiry timer runs. A game is removed between 1 and
+	 * (1 + 1 / EXPIRY_CHECKS) idle timeouts after it was last used.
+	 */
+	private static final int EXPIRY_CHECKS = 10;
+
+	/*
+	 * The JDK server closes idle keep-alive connections beyond this many (200 by default). With
+	 * thousands of players, it closes connections clients are about to reuse, and their next request
+	 * fails.
+	 */
+	private static final String MAX_IDLE_CONNECTIONS_PROPERTY = "sun.net.httpserver.maxIdleConnections";
+	private static final String MAX_IDLE_CONNECTIONS = "65536";
+
+	/*
+	 * The most guesses a game can have, the same as the desktop game allows. Each game keeps an array
+	 * of this size, so it has to be bounded.
+	 */
+	private static final int MAX_GUESSES = getMaxGuesses();
+
+	private final HttpServer server;
+	private final ExecutorService requestExecutor;
+	private final ScheduledExecutorService expiryTimer;
+	private final GameConfig defaultConfig;
+	private final int defaultNumGuesses;
+	private final long idleTimeoutNanos;
+
+	/*
+	 * Games in progress, keyed by game ID.
+	 */
+	private final ConcurrentHashMap<String, Game> games = new ConcurrentHashMap<String, Game>();
+
+	/**
+	 * Class constructor. The server is not started.
+	 *
+	 * @param address address to listen on; port 0 picks a free port
+	 * @param defaultConfig configuration for new games that don't specify one
+	 * @param defaultNumGuesses number of guesses for new games that don't
+	 * specify one
+	 * @param idleTimeout how long a game can go unused before it's removed
+	 * @throws IOException If the server can't listen on the address.
+	 * @see #raiseIdleConnectionLimit
+	 */
+	public GameServer (InetSocketAddress address, GameConfig defaultConfig, int defaultNumGuesses,
+			Duration idleTimeout)
+			throws IOException
+	{
+		this.defaultConfig = defaultConfig;
+		this.defaultNumGuesses = defaultNumGuesses;
+		idleTimeoutNanos = idleTimeout.toNanos();
+
+		/*
+		 * Requests spend nearly all their time waiting on the network, so a virtual thread each is
+		 * much cheaper than a pool of platform threads.
+		 */
+		requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		server = HttpServer.create(address, 0);
+		server.setExecutor(requestExecutor);
+		server.createContext(CONTEXT_PATH, this::handle);
+
+		expiryTimer = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "GameExpiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the port the server is listening on.
+	 *
+	 * @return port
+	 */
+	public int getPort ()
+	{
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Gets the number of games in progress.
+	 *
+	 * @return number of games
+	 */
+	public int getNumGames ()
+	{
+		return games.size();
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Raises the number of idle keep-alive connections the JDK HTTP server
+	 * keeps open, unless it's already set, so that thousands of players can
+	 * keep their connections. This sets a system property that applies to
+	 * every HTTP server in the JVM, and is only read when the first server is
+	 * created, so it has to be called before then.
+	 */
+	public static void raiseIdleConnectionLimit ()
+	{
+		if (System.getProperty(MAX_IDLE_CONNECTIONS_PROPERTY) == null)
+		{
+			System.setProperty(MAX_IDLE_CONNECTIONS_PROPERTY, MAX_IDLE_CONNECTIONS);
+		}
+	}
+
+	/**
+	 * Starts the server and the expiry timer.
+	 */
+	public void start ()
+	{
+		long checkNanos = Math.max(1, idleTimeoutNanos / EXPIRY_CHECKS);
+		expiryTimer.scheduleAtFixedRate(this::expireIdleGames, checkNanos, checkNanos, TimeUnit.NANOSECONDS);
+		server.start();
+	}
+
+	/**
+	 * Stops the server, waiting up to a second for requests in progress.
+	 */
+	public void stop ()
+	{
+		server.stop(1);
+		expiryTimer.shutdownNow();
+		requestExecutor.shutdown();
+	}
+
+    /**
+     * Specifies the main server entry point.
+     *
+     * @param args port and idle timeout in seconds
+     * @throws IOException If the server can't listen on the port.
+     */
+	public static void main (String[] args)
+			throws IOException
+	{
+		int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int idleSeconds = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_IDLE_TIMEOUT_SECONDS;
+
+		/*
+		 * New games default to the saved game options.
+		 */
+		Options options = Options.getInstance();
+		options.readJavaPreferences();
+		OptionsSnapshot snapshot = options.getSnapshot();
+
+		raiseIdleConnectionLimit();
+		GameServer gameServer = new GameServer(new InetSocketAddress(port), GameConfig.fromSnapshot(snapshot),
+				snapshot.getNumGuesses(), Duration.ofSeconds(idleSeconds));
+		gameServer.start();
+
+		/*
+		 * Publish the metrics over JMX. They only record if they're turned on.
+		 */
+		Metrics.publish();
+		System.out.println("Game server listening on port " + gameServer.getPort());
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Handle one request.
+	 */
+	private void handle (HttpExchange exchange)
+			throws IOException
+	{
+		try
+		{
+			String method = exchange.getRequestMethod();
+			URI uri = exchange.getRequestURI();
+			Map<String, String> params = parseQuery(uri.getRawQuery());
+
+			/*
+			 * Split the path after /games into the game ID and the action.
+			 */
+			String rest = uri.getPath().substring(CONTEXT_PATH.length());
+			String[] parts = (rest.isEmpty() || rest.equals("/")) ? new String[0] : rest.substring(1).split("/");
+
+			if (parts.length == 0)
+			{
+				if (method.equals("POST") == false)
+				{
+					send(exchange, 405, error("Method not allowed"));
+					return;
+				}
+				send(exchange, 201, newGame(params));
+				return;
+			}
+
+			Game game = games.get(parts[0]);
+			if (game == null)
+			{
+				send(exchange, 404, error("No such game"));
+				return;
+			}
+			game.lastUsed = System.nanoTime();
+
+			if (parts.length == 1 && method.equals("GET"))
+			{
+				send(exchange, 200, game.describe(parts[0]));
+			}
+			else if (parts.length == 1 && method.equals("DELETE"))
+			{
+				games.remove(parts[0]);
+				send(exchange, 204, null);
+			}
+			else if (parts.length == 2 && parts[1].equals("guess") && method.equals("POST"))
+			{
+				send(exchange, 200, game.guess(parts[0], params.get("code")));
+			}
+			else
+			{
+				send(exchange, 405, error("Method not allowed"));
+			}
+		}
+
+		/*
+		 * Bad parameters, or a guess on a game that's already over.
+		 */
+		catch (IllegalArgumentException e)
+		{
+			send(exchange, 400, error(e.getMessage()));
+		}
+		catch (IllegalStateException e)
+		{
+			send(exchange, 409, error(e.getMessage()));
+		}
+
+		/*
+		 * Anything else is a bug, but the client still gets a response rather than a dropped
+		 * connection.
+		 */
+		catch (RuntimeException e)
+		{
+			send(exchange, 500, error(e.toString()));
+		}
+	}
+
+	/*
+	 * Start a new game.
+	 */
+	private String newGame (Map<String, String> params)
+	{
+		GameConfig config = new GameConfig(
+				getIntParam(params, "colors", defaultConfig.getNumColors()),
+				getIntParam(params, "holes", defaultConfig.getNumHoles()),
+				getBooleanParam(params, "dups", defaultConfig.getDupsAllowed()),
+				getBooleanParam(params, "blanks", defaultConfig.getBlanksAllowed()));
+		int numGuesses = getIntParam(params, "guesses", defaultNumGuesses);
+		if (numGuesses < 1 || numGuesses > MAX_GUESSES)
+		{
+			throw new IllegalArgumentException("Number of guesses must be from 1 to " + MAX_GUESSES);
+		}
+
+		String id = UUID.randomUUID().toString();
+		Game game = new Game(new GameSession(config, numGuesses, ThreadLocalRandom.current()));
+		games.put(id, game);
+
+		return game.describe(id);
+	}
+
+	/*
+	 * Remove games that haven't been used for the idle timeout.
+	 */
+	private void expireIdleGames ()
+	{
+		long now = System.nanoTime();
+		games.values().removeIf(game -> now - game.lastUsed > idleTimeoutNanos);
+	}
+
+	/*
+	 * Send a response.
+	 */
+	private static void send (HttpExchange exchange, int status, String body)
+			throws IOException
+	{
+		if (body == null)
+		{
+			exchange.sendResponseHeaders(status, -1);
+			exchange.close();
+			return;
+		}
+
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(bytes);
+		}
+	}
+
+	/*
+	 * Build an error response body.
+	 */
+	private static String error (String message)
+	{
+		return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+	}
+
+	/*
+	 * Parse a raw query string into a map. The parameters are all simple values, so they aren't
+	 * URL decoded.
+	 */
+	private static Map<String, String> parseQuery (String query)
+	{
+		Map<String, String> params = new HashMap<String, String>();
+		if (query != null)
+		{
+			for (String param : query.split("&"))
+			{
+				int equals = param.indexOf('=');
+				if (equals > 0)
+				{
+					params.put(param.substring(0, equals), param.substring(equals + 1));
+				}
+			}
+		}
+
+		return params;
+	}
+
+	/*
+	 * Get the largest number of guesses the game options allow.
+	 */
+	private static int getMaxGuesses ()
+	{
+		int maxGuesses = 0;
+		for (Options.NumGuesses numGuesses : Options.NumGuesses.values())
+		{
+			maxGuesses = Math.max(maxGuesses, numGuesses.getNumGuessesValue());
+		}
+
+		return maxGuesses;
+	}
+
+	private static int getIntParam (Map<String, String> params, String name, int defaultValue)
+	{
+		String value = params.get(name);
+		return (value != null) ? Integer.parseInt(value) : defaultValue;
+	}
+
+	private static boolean getBooleanParam (Map<String, String> params, String name, boolean defaultValue)
+	{
+		String value = params.get(name);
+		return (value != null) ? Boolean.parseBoolean(value) : defaultValue;
+	}
+
+	/*
+	 * Format a packed code as one hex digit per hole, hole 0 first.
+	 */
+	private static String formatCode (int code, int numHoles)
+	{
+		StringBuilder builder = new StringBuilder(numHoles);
+		for (int hole = 0; hole < numHoles; hole++)
+		{
+			builder.append(Character.forDigit(CodeScorer.getHoleValue(code, hole), 16));
+		}
+
+		return builder.toString();
+	}
+
+	/*
+	 * Parse a code of one hex digit per hole, hole 0 first.
+	 */
+	private static int parseCode (String text, GameConfig config)
+	{
+		if (text == null || text.length() != config.getNumHoles())
+		{
+			throw new IllegalArgumentException("Code must have " + config.getNumHoles() + " digits");
+		}
+
+		int code = 0;
+		for (int hole = 0; hole < text.length(); hole++)
+		{
+			int value = Character.digit(text.charAt(hole), 16);
+			if (value < 1 || value > config.getNumValues())
+			{
+				throw new IllegalArgumentException("Code digits must be 1 to " + config.getNumValues());
+			}
+			code = CodeScorer.setHoleValue(code, hole, value);
+		}
+
+		return code;
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/*
+	 * A game in progress. Requests for the same game can arrive on different threads, so the session
+	 * is only used while holding the game's lock.
+	 */
+	private static final class Game
+	{
+		private final GameSession session;
+		private volatile long lastUsed;
+
+		private Game (GameSession session)
+		{
+			this.session = session;
+			lastUsed = System.nanoTime();
+		}
+
+		/*
+		 * Submit a guess and describe the result.
+		 */
+		private synchronized String guess (String id, String codeText)
+		{
+			int score = session.submitGuess(parseCode(codeText, session.getConfig()));
+			return "{\"black\":" + CodeScorer.getNumBlack(score)
+					+ ",\"white\":" + CodeScorer.getNumWhite(score)
+					+ "," + describeState(id) + "}";
+		}
+
+		/*
+		 * Describe the game.
+		 */
+		private synchronized String describe (String id)
+		{
+			return "{" + describeState(id) + "}";
+		}
+
+		private String describeState (String id)
+		{
+			GameConfig config = session.getConfig();
+			StringBuilder builder = new StringBuilder();
+			builder.append("\"id\":\"").append(id).append('"')
+					.append(",\"config\":\"").append(config.getName()).append('"')
+					.append(",\"state\":\"").append(session.getState()).append('"')
+					.append(",\"guessesLeft\":").append(session.getNumGuesses() - session.getGuessCount());
+
+			if (session.isOver() == true)
+			{
+				builder.append(",\"puzzle\":\"").append(formatCode(session.getPuzzle(), config.getNumHoles()))
+						.append('"');
+			}
+
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package mastermind;
+
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * Class that represents a single game: the puzzle, the guesses made so far and
+ * their scores, and whether the game has been won or lost. It has no UI, so
+ * games can be played headless, for example by solvers and simulations.
+ * <p>
+ * Codes and scores are packed as described in <code>CodeScorer</code>, and the
+ * game state is kept in primitive arrays.
+ *
+ * @author Jon
+ *
+ */
+public final class GameSession
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * The state of a game.
+	 */
+	public enum State
+	{
+
+		/**
+		 * The game is still being played.
+		 */
+		IN_PROGRESS,
+
+		/**
+		 * The puzzle was solved.
+		 */
+		WON,
+
+		/**
+		 * All guesses were used without solving the puzzle.
+		 */
+		LOST
+	}
+
+    //---------------- Class variables -------------------------------------
+
+	private final GameConfig config;
+	private final int numGuesses;
+	private final int puzzle;
+
+	/*
+	 * Guesses made so far, and their scores.
+	 */
+	private final int[] guesses;
+	private final int[] scores;
+	private int guessCount;
+	private State state;
+
+	/*
+	 * Codes still consistent with the guesses so far. This is only created when first asked for,
+	 * so games that never need it don't pay for keeping it up to date.
+	 */
+	private CandidateSet candidates;
+
+	/**
+	 * Class constructor. A new puzzle is generated randomly.
+	 *
+	 * @param config puzzle configuration
+	 * @param numGuesses number of guesses allowed
+	 * @param rand random number generator used to generate the puzzle
+	 */
+	public GameSession (GameConfig config, int numGuesses, RandomGenerator rand)
+	{
+		this(config, numGuesses, generatePuzzle(config, rand));
+	}
+
+	/**
+	 * Class constructor for a known puzzle.
+	 *
+	 * @param config puzzle configuration
+	 * @param numGuesses number of guesses allowed
+	 * @param puzzle packed puzzle code
+	 */
+	public GameSession (GameConfig config, int numGuesses, int puzzle)
+	{
+		if (numGuesses < 1)
+		{
+			throw new IllegalArgumentException("Number of guesses must be positive");
+		}
+
+		this.config = config;
+		this.numGuesses = numGuesses;
+		this.puzzle = puzzle;
+
+		guesses = new int[numGuesses];
+		scores = new int[numGuesses];
+		guessCount = 0;
+		state = State.IN_PROGRESS;
+	}
+
+	/*
+	 * Copy constructor.
+	 */
+	private GameSession (GameSession other)
+	{
+		config = other.config;
+		numGuesses = other.numGuesses;
+		puzzle = other.puzzle;
+
+		guesses = other.guesses.clone();
+		scores = other.scores.clone();
+		guessCount = other.guessCount;
+		state = other.state;
+		candidates = (other.candidates != null) ? other.candidates.copy() : null;
+	}
+
+	/**
+	 * Creates a new game from the current game options. The options are copied,
+	 * so later changes to them don't affect the game.
+	 *
+	 * @param options game options
+	 * @return new game
+	 */
+	public static GameSession fromOptions (Options options)
+	{
+		return fromOptions(options, new Random());
+	}
+
+	/**
+	 * Creates a new game from the current game options, using a given random
+	 * number generator for the puzzle. The options are copied, so later changes
+	 * to them don't affect the game.
+	 *
+	 * @param options game options
+	 * @param rand random number generator used to generate the puzzle
+	 * @return new game
+	 */
+	public static GameSession fromOptions (Options options, RandomGenerator rand)
+	{
+		OptionsSnapshot snapshot = options.getSnapshot();
+		return new GameSession(GameConfig.fromSnapshot(snapshot), snapshot.getNumGuesses(), rand);
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the puzzle configuration.
+	 *
+	 * @return puzzle configuration
+	 */
+	public GameConfig getConfig ()
+	{
+		return config;
+	}
+
+	/**
+	 * Gets the number of guesses allowed.
+	 *
+	 * @return number of guesses allowed
+	 */
+	public int getNumGuesses ()
+	{
+		return numGuesses;
+	}
+
+	/**
+	 * Gets the puzzle.
+	 *
+	 * @return packed puzzle code
+	 */
+	public int getPuzzle ()
+	{
+		return puzzle;
+	}
+
+	/**
+	 * Gets the number of guesses made so far. While the game is in progress,
+	 * this is also the index of the next guess.
+	 *
+	 * @return number of guesses made
+	 */
+	public int getGuessCount ()
+	{
+		return guessCount;
+	}
+
+	/**
+	 * Gets a guess made earlier in the game.
+	 *
+	 * @param index guess index, from 0 to <code>getGuessCount() - 1</code>
+	 * @return packed guess code
+	 */
+	public int getGuess (int index)
+	{
+		checkGuessIndex(index);
+		return guesses[index];
+	}
+
+	/**
+	 * Gets the score of a guess made earlier in the game.
+	 *
+	 * @param index guess index, from 0 to <code>getGuessCount() - 1</code>
+	 * @return packed score
+	 */
+	public int getScore (int index)
+	{
+		checkGuessIndex(index);
+		return scores[index];
+	}
+
+	/**
+	 * Gets the game state.
+	 *
+	 * @return game state
+	 */
+	public State getState ()
+	{
+		return state;
+	}
+
+	/**
+	 * Gets the set of codes still consistent with every guess and score so far.
+	 * The first call builds the set; after that it's kept up to date as each
+	 * guess is submitted. The returned set is live and must not be modified.
+	 *
+	 * @return candidate set
+	 */
+	public CandidateSet getCandidates ()
+	{
+		if (candidates == null)
+		{
+			candidates = new CandidateSet(CodeSpace.forConfig(config));
+			for (int i = 0; i < guessCount; i++)
+			{
+				candidates.retainConsistent(guesses[i], scores[i]);
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Indicates if the game is over, either won or lost.
+	 *
+	 * @return <code>true</code> if the game is over, otherwise
+	 * <code>false</code>
+	 */
+	public boolean isOver ()
+	{
+		return state != State.IN_PROGRESS;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Creates a copy of the game. The copy can be handed to another thread, for
+	 * example to search for a hint, while this game carries on.
+	 *
+	 * @return copy of the game
+	 */
+	public GameSession copy ()
+	{
+		return new GameSession(this);
+	}
+
+	/**
+	 * Submits a guess. The guess is scored against the puzzle and recorded, and
+	 * the game state is updated.
+	 *
+	 * @param guess packed guess code
+	 * @return packed score
+	 * @throws IllegalStateException If the game is already over.
+	 */
+	public int submitGuess (int guess)
+	{
+		if (isOver() == true)
+		{
+			throw new IllegalStateException("Game is over");
+		}
+
+		long start = Metrics.GUESS_EVALUATION.start();
+
+		int result = score(guess);
+		guesses[guessCount] = guess;
+		scores[guessCount] = result;
+		guessCount++;
+
+		if (candidates != null)
+		{
+			candidates.retainConsistent(guess, result);
+		}
+
+		/*
+		 * All black means the puzzle is solved. Otherwise, if we ran out of guesses, the game is lost.
+		 */
+		if (CodeScorer.getNumBlack(result) == config.getNumHoles())
+		{
+			state = State.WON;
+		}
+		else if (guessCount >= numGuesses)
+		{
+			state = State.LOST;
+		}
+
+		Metrics.GUESS_EVALUATION.stop(start);
+
+		return result;
+	}
+
+	/**
+	 * Scores a guess against the puzzle without recording it.
+	 *
+	 * @param guess packed guess code
+	 * @return packed score
+	 */
+	public int score (int guess)
+	{
+		return CodeScorer.score(puzzle, guess, config.getNumHoles());
+	}
+
+	/**
+	 * Generates a random puzzle for a configuration. To generate many
+	 * puzzles, use a <code>PuzzleGenerator</code> directly.
+	 *
+	 * @param config puzzle configuration
+	 * @param rand random number generator
+	 * @return packed puzzle code
+	 */
+	public static int generatePuzzle (GameConfig config, RandomGenerator rand)
+	{
+		long start = Metrics.PUZZLE_GENERATION.start();
+		int puzzle = new PuzzleGenerator(config, rand).next();
+		Metrics.PUZZLE_GENERATION.stop(start);
+
+		return puzzle;
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Check that a guess index refers to a guess already made.
+	 */
+	private void checkGuessIndex (int index)
+	{
+		if (index < 0 || index >= guessCount)
+		{
+			throw new IndexOutOfBoundsException("Guess index " + index + " of " + guessCount);
+		}
+	}
+}
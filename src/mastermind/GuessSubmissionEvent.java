@@ -0,0 +1,41 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for submitting a guess and
+ * scoring it.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.GuessSubmission")
+@Label("Guess Submission")
+@Category("Mastermind")
+@Description("Submitting a guess and scoring it against the puzzle")
+@StackTrace(false)
+final class GuessSubmissionEvent extends Event
+{
+	@Label("Guess Number")
+	@Description("Number of the guess in the game, starting at 1")
+	int guessNumber;
+
+	@Label("Guess")
+	@Description("Packed guess code, 4 bits per hole")
+	int guess;
+
+	@Label("Black Clues")
+	int numBlack;
+
+	@Label("White Clues")
+	int numWhite;
+
+	@Label("Game State")
+	@Description("State of the game after the guess")
+	String state;
+}
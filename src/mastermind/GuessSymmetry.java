@@ -0,0 +1,240 @@
+package mastermind;
+
+import java.util.Arrays;
+
+/**
+ * Class that finds the guesses a solver actually needs to evaluate. This is a
+ * utility class.
+ * <p>
+ * Early in a game most guesses are equivalent. A color that hasn't been used
+ * in any guess yet can be swapped for any other unused color, and holes that
+ * have held the same color in every guess can be swapped with each other,
+ * without changing anything the clues have told us. So <code>1 1 2 2</code>
+ * scores the remaining candidates exactly like <code>3 3 5 5</code> after a
+ * first guess of <code>1 1 1 1</code>.
+ * <p>
+ * Equivalent guesses split the candidates into the same partitions, and they
+ * are either all candidates or all not, so a solver only needs to evaluate one
+ * guess per class. The lowest code index in each class is used, so solvers
+ * choose exactly the same guesses as they would by evaluating every code.
+ *
+ * @author Jon
+ *
+ */
+public final class GuessSymmetry
+{
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private GuessSymmetry ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets one guess from each class of equivalent guesses for a game, based
+	 * on the guesses made so far.
+	 *
+	 * @param session game in progress
+	 * @return code indexes of the guesses to evaluate, in increasing order
+	 */
+	public static int[] getRepresentatives (GameSession session)
+	{
+		GameConfig config = session.getConfig();
+		CodeSpace codeSpace = CodeSpace.forConfig(config);
+		int numHoles = config.getNumHoles();
+		int numValues = config.getNumValues();
+		int size = codeSpace.getSize();
+
+		/*
+		 * Find the values not used in any guess so far. These can be swapped for each other.
+		 */
+		int usedValues = 0;
+		for (int i = 0; i < session.getGuessCount(); i++)
+		{
+			int guess = session.getGuess(i);
+			for (int hole = 0; hole < numHoles; hole++)
+			{
+				usedValues |= 1 << CodeScorer.getHoleValue(guess, hole);
+			}
+		}
+
+		int[] freeValues = new int[numValues];
+		int numFree = 0;
+		for (int value = 1; value <= numValues; value++)
+		{
+			if ((usedValues & (1 << value)) == 0)
+			{
+				freeValues[numFree++] = value;
+			}
+		}
+
+		/*
+		 * Group the holes into classes of holes that have held the same value in every guess. Holes
+		 * in the same class can be swapped for each other. Classes are numbered in order of their
+		 * first hole.
+		 */
+		int[] holeClass = new int[numHoles];
+		int numClasses = 0;
+		for (int hole = 0; hole < numHoles; hole++)
+		{
+			holeClass[hole] = numClasses;
+			for (int other = 0; other < hole; other++)
+			{
+				if (isSameInEveryGuess(session, hole, other) == true)
+				{
+					holeClass[hole] = holeClass[other];
+					break;
+				}
+			}
+
+			if (holeClass[hole] == numClasses)
+			{
+				numClasses++;
+			}
+		}
+
+		/*
+		 * Every code is its own class if nothing can be swapped.
+		 */
+		if (numFree <= 1 && numClasses == numHoles)
+		{
+			int[] representatives = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				representatives[i] = i;
+			}
+
+			return representatives;
+		}
+
+		/*
+		 * A value's signature packs how many times it appears in each hole class, as digits in base
+		 * (numHoles + 1). Get the digit each hole adds to.
+		 */
+		int[] holeDigits = new int[numHoles];
+		for (int hole = 0; hole < numHoles; hole++)
+		{
+			holeDigits[hole] = 1;
+			for (int i = 0; i < holeClass[hole]; i++)
+			{
+				holeDigits[hole] *= numHoles + 1;
+			}
+		}
+
+		/*
+		 * Walk the codes in index order, keeping each one whose canonical form hasn't been seen yet.
+		 * That keeps the lowest index in each class. There are usually far fewer classes than codes,
+		 * so the result array starts small and grows as needed.
+		 */
+		int[] representatives = new int[Math.min(size, 1024)];
+		long[] seen = new long[(size + Long.SIZE - 1) / Long.SIZE];
+		int[] signatures = new int[numValues + 1];
+		int[] freeSignatures = new int[numFree];
+		int numRepresentatives = 0;
+
+		for (int index = 0; index < size; index++)
+		{
+			int canonical = canonicalize(codeSpace.getCode(index), numHoles, holeDigits,
+					freeValues, numFree, signatures, freeSignatures);
+			int canonicalIndex = codeSpace.indexOf(canonical);
+
+			long bit = 1L << canonicalIndex;
+			if ((seen[canonicalIndex / Long.SIZE] & bit) == 0)
+			{
+				seen[canonicalIndex / Long.SIZE] |= bit;
+				if (numRepresentatives == representatives.length)
+				{
+					representatives = Arrays.copyOf(representatives, Math.min(size, numRepresentatives * 2));
+				}
+				representatives[numRepresentatives++] = index;
+			}
+		}
+
+		return Arrays.copyOf(representatives, numRepresentatives);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Check if two holes have held the same value in every guess so far.
+	 */
+	private static boolean isSameInEveryGuess (GameSession session, int hole, int other)
+	{
+		for (int i = 0; i < session.getGuessCount(); i++)
+		{
+			int guess = session.getGuess(i);
+			if (CodeScorer.getHoleValue(guess, hole) != CodeScorer.getHoleValue(guess, other))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/*
+	 * Get the canonical form of a code, which is the same for every code in its class.
+	 *
+	 * Up to swapping holes within a class, a code is just how many times each value appears in each
+	 * hole class. Free values can also be swapped, so only the set of their counts matters, not which
+	 * free value has which counts. So the canonical form gives the free values their counts in
+	 * decreasing order, then fills each hole class with its values in increasing order.
+	 */
+	private static int canonicalize (int code, int numHoles, int[] holeDigits, int[] freeValues, int numFree,
+			int[] signatures, int[] freeSignatures)
+	{
+
+		/*
+		 * Get the signature of each value.
+		 */
+		Arrays.fill(signatures, 0);
+		for (int hole = 0; hole < numHoles; hole++)
+		{
+			signatures[CodeScorer.getHoleValue(code, hole)] += holeDigits[hole];
+		}
+
+		/*
+		 * Sort the free values' signatures in decreasing order (insertion sort; there are at most a
+		 * handful), and hand them out to the free values in increasing order.
+		 */
+		for (int i = 0; i < numFree; i++)
+		{
+			int signature = signatures[freeValues[i]];
+			int j = i;
+			while (j > 0 && freeSignatures[j - 1] < signature)
+			{
+				freeSignatures[j] = freeSignatures[j - 1];
+				j--;
+			}
+			freeSignatures[j] = signature;
+		}
+
+		for (int i = 0; i < numFree; i++)
+		{
+			signatures[freeValues[i]] = freeSignatures[i];
+		}
+
+		/*
+		 * Rebuild the code from the signatures, filling the holes of each class in hole order with
+		 * the class's values in increasing order.
+		 */
+		int canonical = 0;
+		for (int hole = 0; hole < numHoles; hole++)
+		{
+			int digit = holeDigits[hole];
+			int value = 1;
+			while ((signatures[value] / digit) % (numHoles + 1) == 0)
+			{
+				value++;
+			}
+
+			signatures[value] -= digit;
+			canonical = CodeScorer.setHoleValue(canonical, hole, value);
+		}
+
+		return canonical;
+	}
+}
@@ -0,0 +1,242 @@
+package mastermind;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class that implements Knuth's minimax strategy. Each guess is the code that
+ * minimizes the worst case number of candidates left after it's scored,
+ * preferring codes that are still candidates, then the lowest code index.
+ * <p>
+ * Finding the worst case for every possible guess is the expensive part (for 8
+ * colors and 5 holes, the first guess scores 32,768 guesses against 32,768
+ * candidates). Only one guess from each class of equivalent guesses is
+ * evaluated (see <code>GuessSymmetry</code>), and those guesses are split
+ * across a <code>ForkJoinPool</code>.
+ *
+ * @author Jon
+ *
+ */
+public class KnuthSolver implements Solver
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Target number of leaf tasks per worker thread. More leaves than threads evens out the load,
+	 * since pruned guesses finish early.
+	 */
+	private static final int LEAVES_PER_THREAD = 16;
+	private static final int MIN_LEAF_SIZE = 16;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Class constructor. The common fork/join pool is used.
+	 */
+	public KnuthSolver ()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param pool fork/join pool used to evaluate guesses
+	 */
+	public KnuthSolver (ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Chooses the next guess for a game using the minimax strategy.
+	 *
+	 * @param session game in progress
+	 * @param cancelled checked once per guess evaluated
+	 * @return packed guess code
+	 * @throws CancellationException If the search was cancelled.
+	 */
+	@Override
+	public int chooseGuess (GameSession session, BooleanSupplier cancelled)
+	{
+		CodeSpace codeSpace = CodeSpace.forConfig(session.getConfig());
+
+		/*
+		 * Get the codes that are still consistent with every guess and score so far.
+		 */
+		CandidateSet candidateSet = session.getCandidates();
+		int[] candidates = new int[candidateSet.getCount()];
+		int numCandidates = candidateSet.copyIndexes(candidates);
+		int[] candidateCodes = new int[numCandidates];
+		for (int i = 0; i < numCandidates; i++)
+		{
+			candidateCodes[i] = codeSpace.getCode(candidates[i]);
+		}
+
+		/*
+		 * With one or two candidates left, just guess one of them.
+		 */
+		if (numCandidates <= 2)
+		{
+			return candidateCodes[0];
+		}
+
+		/*
+		 * Evaluate one guess from each class of equivalent guesses, in parallel.
+		 */
+		int[] guessIndexes = GuessSymmetry.getRepresentatives(session);
+		int numGuesses = guessIndexes.length;
+		int leafSize = Math.max(MIN_LEAF_SIZE, numGuesses / (pool.getParallelism() * LEAVES_PER_THREAD));
+		Search search = new Search(codeSpace, FeedbackTables.request(codeSpace.getConfig()), guessIndexes,
+				candidates, candidateCodes, numCandidates, candidateSet, leafSize, cancelled);
+		long best = pool.invoke(search.new MinimaxTask(0, numGuesses));
+
+		return codeSpace.getCode(getGuessIndex(best));
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Each guess is ranked by a key that packs, from most to least significant:
+	 *
+	 * - the worst case number of candidates left
+	 * - 0 if the guess is a candidate, 1 if not
+	 * - the guess index
+	 *
+	 * The best guess has the smallest key.
+	 */
+	private static long getRankKey (int worstCase, boolean isCandidate, int guessIndex)
+	{
+		return ((long) worstCase << 33) | ((isCandidate == true) ? 0L : 1L << 32) | guessIndex;
+	}
+
+	private static int getGuessIndex (long rankKey)
+	{
+		return (int) rankKey;
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/*
+	 * Shared state for one guess search.
+	 */
+	private static final class Search
+	{
+		private final CodeSpace codeSpace;
+		private final FeedbackTable table;
+		private final int[] guessIndexes;
+		private final int[] candidates;
+		private final int[] candidateCodes;
+		private final int numCandidates;
+		private final CandidateSet candidateSet;
+		private final int leafSize;
+		private final BooleanSupplier cancelled;
+
+		/*
+		 * Smallest worst case found so far by any task. A guess whose partial worst case goes past
+		 * this can't be chosen, so we stop scoring it early. This never changes the result, only
+		 * how fast we get it.
+		 */
+		private final AtomicInteger bestWorstCase = new AtomicInteger(Integer.MAX_VALUE);
+
+		private Search (CodeSpace codeSpace, FeedbackTable table, int[] guessIndexes, int[] candidates,
+				int[] candidateCodes, int numCandidates, CandidateSet candidateSet, int leafSize,
+				BooleanSupplier cancelled)
+		{
+			this.codeSpace = codeSpace;
+			this.table = table;
+			this.guessIndexes = guessIndexes;
+			this.candidates = candidates;
+			this.candidateCodes = candidateCodes;
+			this.numCandidates = numCandidates;
+			this.candidateSet = candidateSet;
+			this.leafSize = leafSize;
+			this.cancelled = cancelled;
+		}
+
+		/*
+		 * Task that finds the best guess in a range of the guesses to evaluate.
+		 */
+		private final class MinimaxTask extends RecursiveTask<Long>
+		{
+			private static final long serialVersionUID = 1L;
+
+			private final int from;
+			private final int to;
+
+			private MinimaxTask (int from, int to)
+			{
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected Long compute ()
+			{
+
+				/*
+				 * Split the range in half until it's small enough.
+				 */
+				if (to - from > leafSize)
+				{
+					int middle = (from + to) >>> 1;
+					MinimaxTask left = new MinimaxTask(from, middle);
+					left.fork();
+					long right = new MinimaxTask(middle, to).compute();
+					return Math.min(left.join(), right);
+				}
+
+				/*
+				 * Score each guess in the range against all candidates, counting the size of each
+				 * partition in a histogram indexed by packed score.
+				 */
+				int numHoles = codeSpace.getConfig().getNumHoles();
+				int[] histogram = new int[CodeScorer.SCORE_LIMIT];
+				long best = Long.MAX_VALUE;
+
+				for (int i = from; i < to; i++)
+				{
+					if (cancelled.getAsBoolean() == true)
+					{
+						throw new CancellationException();
+					}
+
+					int guessIndex = guessIndexes[i];
+					int bound = bestWorstCase.get();
+					int guess = codeSpace.getCode(guessIndex);
+					int worstCase = 0;
+
+					for (int j = 0; j < numCandidates && worstCase <= bound; j++)
+					{
+						int score = (table != null)
+								? table.getScore(guessIndex, candidates[j])
+								: CodeScorer.score(candidateCodes[j], guess, numHoles);
+						worstCase = Math.max(worstCase, ++histogram[score]);
+					}
+
+					Arrays.fill(histogram, 0);
+
+					/*
+					 * Skip guesses that were pruned or are worse than the best one found so far.
+					 */
+					if (worstCase > bound)
+					{
+						continue;
+					}
+
+					best = Math.min(best, getRankKey(worstCase, candidateSet.contains(guessIndex), guessIndex));
+					bestWorstCase.accumulateAndGet(worstCase, Math::min);
+				}
+
+				return best;
+			}
+		}
+	}
+}
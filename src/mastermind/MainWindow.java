@@ -1,6 +1,7 @@
 package mastermind;
 
 import java.io.IOException;
+import java.util.prefs.BackingStoreException;
 
 import org.apache.pivot.beans.BXML;
 import org.apache.pivot.beans.BXMLSerializer;
@@ -44,6 +45,7 @@ public class MainWindow implements Application
     @BXML private Label titleLabel = null;
     @BXML private PushButton gameOptionsButton = null;
     @BXML private PushButton newGameButton = null;
+    @BXML private PushButton statsButton = null;
     
     /**
      * Class constructor.
@@ -81,6 +83,8 @@ public class MainWindow implements Application
     public void startup (Display display, Map<String, String> properties)
     		throws IOException, SerializationException
     {
+    	WindowOpenEvent openEvent = new WindowOpenEvent();
+    	openEvent.begin();
     	
     	/*
     	 * Set diag mode if the property is set. This lets us cheat and see the puzzle, for diagnosing
@@ -137,6 +141,26 @@ public class MainWindow implements Application
             }
         });
         
+        /*
+         * Listener to handle the statistics button press.
+         */
+        statsButton.getButtonPressListeners().add(new ButtonPressListener() 
+        {
+            @Override
+            public void buttonPressed(Button button) 
+            {            	
+            	try
+				{
+            		StatsWindow statsWindowHandler = new StatsWindow();
+            		statsWindowHandler.displayStats(display);
+				} 
+            	catch (IOException | SerializationException e)
+				{
+					throw new RuntimeException(e);
+				}
+            }
+        });
+        
         /*
          * Flesh out the widgets.
          */
@@ -148,8 +172,17 @@ public class MainWindow implements Application
         newGameButton.setButtonData("New Game");
         newGameButton.setPreferredHeight(MAIN_BUTTON_HEIGHT);
         
+        statsButton.setButtonData("Statistics");
+        statsButton.setPreferredHeight(MAIN_BUTTON_HEIGHT);
+        
         //---------------- Start of Initialization -----------------------------
 		
+		/*
+		 * Start loading the peg images in the background, so they're ready by the time a puzzle is
+		 * opened.
+		 */
+		PegImages.preload();
+		
 		/*
 		 * Get the game options singleton object.
 		 */
@@ -160,6 +193,35 @@ public class MainWindow implements Application
 		 */
 		options.readJavaPreferences();
 		
+		/*
+		 * Save the game options whenever they change.
+		 */
+		options.addOptionsListener(new OptionsListener()
+		{
+			@Override
+			public void optionsChanged(OptionsSnapshot previous, OptionsSnapshot current)
+			{
+				try
+				{
+					options.saveJavaPreferences();
+				}
+				catch (BackingStoreException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		
+		/*
+		 * Publish the metrics over JMX. They only record if they're turned on.
+		 */
+		Metrics.publish();
+		
+		/*
+		 * Read the player's statistics, so the statistics window has nothing to read.
+		 */
+		StatsStore.getDefault();
+		
 		/*
 		 * Set the window title.
 		 */
@@ -169,6 +231,18 @@ public class MainWindow implements Application
          * Open the main window.
          */
         mainWindow.open(display);
+        
+        if (openEvent.shouldCommit() == true)
+        {
+        	openEvent.window = mainWindow.getTitle();
+        	openEvent.commit();
+        }
+        
+        /*
+         * Build the puzzle, options and statistics windows while the event thread is idle after the main
+         * window is up, so they open without any BXML parsing when they're asked for.
+         */
+        WindowLoader.preload("puzzleWindow.bxml", "optionsWindow.bxml", "statsWindow.bxml");
     }
 
     /**
@@ -184,6 +258,30 @@ public class MainWindow implements Application
         if (mainWindow != null) 
         {
             mainWindow.close();
+            
+            WindowCloseEvent closeEvent = new WindowCloseEvent();
+            if (closeEvent.shouldCommit() == true)
+            {
+            	closeEvent.window = mainWindow.getTitle();
+            	closeEvent.commit();
+            }
+        }
+        
+        /*
+         * Write out any games still waiting to go into the game log.
+         */
+        GameLog.closeDefault();
+        
+        /*
+         * Make sure the player's statistics are on disk.
+         */
+        try
+        {
+        	StatsStore.getDefault().flush();
+        }
+        catch (BackingStoreException e)
+        {
+        	throw new RuntimeException(e);
         }
 
         return false;
@@ -228,6 +326,8 @@ public class MainWindow implements Application
     		throws IOException, SerializationException
     {
     	
+        long start = Metrics.WINDOW_LOAD.start();
+
         BXMLSerializer windowSerializer = new BXMLSerializer();
         mainWindow = 
         		(Window)windowSerializer.readObject(getClass().getResource("mainWindow.bxml"));
@@ -238,5 +338,9 @@ public class MainWindow implements Application
         		(PushButton)windowSerializer.getNamespace().get("gameOptionsButton");
 		newGameButton = 
         		(PushButton)windowSerializer.getNamespace().get("newGameButton");
+		statsButton = 
+        		(PushButton)windowSerializer.getNamespace().get("statsButton");
+
+        Metrics.WINDOW_LOAD.stop(start);
     }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package mastermind;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that measures how long one kind of operation takes: how many times it
+ * ran, the total and longest times, and a histogram of the times. The
+ * histogram has fixed buckets, each twice as wide as the one before, from 1
+ * microsecond up to about a second.
+ * <p>
+ * Recording is lock free, so any number of threads can record at once. To
+ * time an operation, get a start time from <code>start</code>, and pass it to
+ * <code>stop</code> when the operation is done. When the metric is off,
+ * <code>start</code> doesn't even read the clock, and <code>stop</code> does
+ * nothing, so the calls can be left in hot paths.
+ *
+ * @author Jon
+ *
+ */
+public final class Metric implements MetricMXBean
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Start time given when the metric is off. Stopping it records nothing.
+	 */
+	public static final long NOT_STARTED = Long.MIN_VALUE;
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Number of bucket upper bounds. The bounds are 1, 2, 4 ... microseconds, and the last bucket
+	 * takes everything longer.
+	 */
+	private static final int NUM_BOUNDS = 21;
+
+	private final String name;
+	private final String description;
+	private volatile boolean enabled;
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder[] buckets = new LongAdder[NUM_BOUNDS + 1];
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param name metric name
+	 * @param description what the metric measures
+	 * @param enabled true if the metric starts out recording
+	 */
+	public Metric (String name, String description, boolean enabled)
+	{
+		this.name = name;
+		this.description = description;
+		this.enabled = enabled;
+
+		for (int i = 0; i < buckets.length; i++)
+		{
+			buckets[i] = new LongAdder();
+		}
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	@Override
+	public String getName ()
+	{
+		return name;
+	}
+
+	@Override
+	public String getDescription ()
+	{
+		return description;
+	}
+
+	@Override
+	public boolean isEnabled ()
+	{
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled (boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	@Override
+	public long getCount ()
+	{
+		return count.sum();
+	}
+
+	@Override
+	public double getTotalMillis ()
+	{
+		return totalNanos.sum() / 1e6;
+	}
+
+	@Override
+	public double getMeanMicros ()
+	{
+		long numRecorded = count.sum();
+		return (numRecorded > 0) ? totalNanos.sum() / 1e3 / numRecorded : 0;
+	}
+
+	@Override
+	public long getMaxMicros ()
+	{
+		return maxNanos.get() / 1000;
+	}
+
+	@Override
+	public long[] getBucketBoundsMicros ()
+	{
+		long[] bounds = new long[NUM_BOUNDS];
+		for (int i = 0; i < NUM_BOUNDS; i++)
+		{
+			bounds[i] = 1L << i;
+		}
+
+		return bounds;
+	}
+
+	@Override
+	public long[] getBucketCounts ()
+	{
+		long[] counts = new long[buckets.length];
+		for (int i = 0; i < buckets.length; i++)
+		{
+			counts[i] = buckets[i].sum();
+		}
+
+		return counts;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets the start time for timing an operation.
+	 *
+	 * @return start time, or <code>NOT_STARTED</code> if the metric is off
+	 */
+	public long start ()
+	{
+		return (enabled == true) ? System.nanoTime() : NOT_STARTED;
+	}
+
+	/**
+	 * Records the time an operation took, from the start time to now.
+	 *
+	 * @param start start time given by <code>start</code>
+	 */
+	public void stop (long start)
+	{
+		if (start != NOT_STARTED)
+		{
+			record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Records an operation that took a given time, if the metric is on.
+	 *
+	 * @param nanos time taken, in nanoseconds
+	 */
+	public void record (long nanos)
+	{
+		if (enabled == false)
+		{
+			return;
+		}
+
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+
+		/*
+		 * Find the bucket: the smallest power of 2 microseconds that's at least the time taken.
+		 */
+		long micros = nanos / 1000;
+		int bucket = (micros <= 1) ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+		buckets[Math.min(bucket, NUM_BOUNDS)].increment();
+	}
+
+	@Override
+	public void reset ()
+	{
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (LongAdder bucket : buckets)
+		{
+			bucket.reset();
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return String.format("%s: %d, mean %.1f us, max %d us", name, getCount(), getMeanMicros(), getMaxMicros());
+	}
+}
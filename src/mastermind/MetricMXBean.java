@@ -0,0 +1,89 @@
+package mastermind;
+
+/**
+ * Management interface of a <code>Metric</code>, as published over JMX. See
+ * <code>Metrics</code>.
+ *
+ * @author Jon
+ *
+ */
+public interface MetricMXBean
+{
+
+	/**
+	 * Gets the name of the metric.
+	 *
+	 * @return metric name
+	 */
+	String getName ();
+
+	/**
+	 * Gets a description of what the metric measures.
+	 *
+	 * @return metric description
+	 */
+	String getDescription ();
+
+	/**
+	 * Checks if the metric is recording.
+	 *
+	 * @return true if the metric is recording
+	 */
+	boolean isEnabled ();
+
+	/**
+	 * Turns recording on or off. Turning it off keeps what has been recorded.
+	 *
+	 * @param enabled true to record
+	 */
+	void setEnabled (boolean enabled);
+
+	/**
+	 * Gets the number of times recorded.
+	 *
+	 * @return count
+	 */
+	long getCount ();
+
+	/**
+	 * Gets the total time recorded.
+	 *
+	 * @return total time in milliseconds
+	 */
+	double getTotalMillis ();
+
+	/**
+	 * Gets the mean time recorded.
+	 *
+	 * @return mean time in microseconds, or 0 if nothing has been recorded
+	 */
+	double getMeanMicros ();
+
+	/**
+	 * Gets the longest time recorded.
+	 *
+	 * @return longest time in microseconds
+	 */
+	long getMaxMicros ();
+
+	/**
+	 * Gets the upper bound of each histogram bucket. The last bucket has no
+	 * upper bound.
+	 *
+	 * @return bucket upper bounds in microseconds, one less than the number of
+	 * buckets
+	 */
+	long[] getBucketBoundsMicros ();
+
+	/**
+	 * Gets the number of times recorded in each histogram bucket.
+	 *
+	 * @return bucket counts
+	 */
+	long[] getBucketCounts ();
+
+	/**
+	 * Clears everything recorded.
+	 */
+	void reset ();
+}
@@ -0,0 +1,163 @@
+package mastermind;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class that holds the metrics for the game's hot paths. This is a utility
+ * class.
+ * <p>
+ * Every metric is off unless the <code>mastermind.metrics</code> system
+ * property is <code>true</code>, and each one can be turned on and off while
+ * the game runs. <code>publish</code> makes the metrics available as MBeans,
+ * named <code>mastermind:type=Metric,name=</code> followed by the metric name,
+ * so they can be watched and switched with any JMX console.
+ *
+ * @author Jon
+ *
+ */
+public final class Metrics
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * System property that turns on all the metrics at startup.
+	 */
+	public static final String ENABLED_PROPERTY = "mastermind.metrics";
+
+	/**
+	 * JMX domain of the metric MBeans.
+	 */
+	public static final String JMX_DOMAIN = "mastermind";
+
+	/**
+	 * Scoring and recording a guess.
+	 */
+	public static final Metric GUESS_EVALUATION =
+			create("guessEvaluation", "Scoring and recording a guess");
+
+	/**
+	 * Generating a puzzle.
+	 */
+	public static final Metric PUZZLE_GENERATION =
+			create("puzzleGeneration", "Generating a puzzle");
+
+	/**
+	 * Placing one color of clue pegs for a guess.
+	 */
+	public static final Metric CLUE_PLACEMENT =
+			create("cluePlacement", "Placing one color of clue pegs for a guess");
+
+	/**
+	 * Getting a window from its BXML file.
+	 */
+	public static final Metric WINDOW_LOAD =
+			create("windowLoad", "Getting a window and its components from BXML");
+
+	/**
+	 * Making the board changes for a turn, and asking for them to be repainted.
+	 */
+	public static final Metric TURN_REPAINT =
+			create("turnRepaint", "Making a turn's board changes and queuing their repaints");
+
+	/**
+	 * Starting to drag a color peg.
+	 */
+	public static final Metric PEG_DRAG =
+			create("pegDrag", "Starting to drag a color peg");
+
+	/**
+	 * Dropping a color peg on a guess row.
+	 */
+	public static final Metric PEG_DROP =
+			create("pegDrop", "Dropping a color peg on a guess row");
+
+	/**
+	 * All the metrics.
+	 */
+	public static final List<Metric> ALL = List.of(GUESS_EVALUATION, PUZZLE_GENERATION, CLUE_PLACEMENT,
+			WINDOW_LOAD, TURN_REPAINT, PEG_DRAG, PEG_DROP);
+
+    //---------------- Class variables -------------------------------------
+
+	private static boolean published = false;
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private Metrics ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Registers all the metrics as MBeans with the platform MBean server. Only
+	 * the first call does anything.
+	 *
+	 * @throws IllegalStateException If the MBeans can't be registered.
+	 */
+	public static synchronized void publish ()
+	{
+		if (published == true)
+		{
+			return;
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try
+		{
+			for (Metric metric : ALL)
+			{
+				server.registerMBean(metric, getObjectName(metric));
+			}
+		}
+		catch (JMException e)
+		{
+			throw new IllegalStateException("Unable to publish metrics", e);
+		}
+
+		published = true;
+	}
+
+	/**
+	 * Turns all the metrics on or off.
+	 *
+	 * @param enabled true to record
+	 */
+	public static void setAllEnabled (boolean enabled)
+	{
+		for (Metric metric : ALL)
+		{
+			metric.setEnabled(enabled);
+		}
+	}
+
+	/**
+	 * Gets the MBean name of a metric.
+	 *
+	 * @param metric metric
+	 * @return object name
+	 * @throws JMException If the metric name isn't valid in an object name.
+	 */
+	public static ObjectName getObjectName (Metric metric)
+			throws JMException
+	{
+		return new ObjectName(JMX_DOMAIN + ":type=Metric,name=" + metric.getName());
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Create a metric, on if the system property says so.
+	 */
+	private static Metric create (String name, String description)
+	{
+		return new Metric(name, description, Boolean.getBoolean(ENABLED_PROPERTY));
+	}
+}
@@ -0,0 +1,492 @@
+package mastermind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Class that holds the first few moves a solver makes for a puzzle
+ * configuration. These moves are the most expensive to compute, and they're
+ * the same in every game, so they're computed once and saved to a small
+ * binary file in the game data directory.
+ * <p>
+ * The book maps the scores received so far to the solver's next guess. It
+ * only applies while every guess so far was the book's own guess.
+ * <p>
+ * The file has a version and a checksum. A file that is from another version,
+ * for another configuration or solver, or damaged, is rebuilt automatically.
+ *
+ * @author Jon
+ *
+ */
+public final class OpeningBook
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Default number of moves kept in a book.
+	 */
+	public static final int DEFAULT_DEPTH = 2;
+
+	/**
+	 * Maximum number of moves kept in a book.
+	 */
+	public static final int MAX_DEPTH = 3;
+
+    //---------------- Class variables -------------------------------------
+
+	private static final int FILE_MAGIC = 0x4D4D4F42;
+	private static final int FILE_VERSION = 1;
+	private static final String BOOK_FILE_PREFIX = "book-";
+	private static final String BOOK_FILE_SUFFIX = ".bin";
+
+	/*
+	 * Books loaded or being built, keyed by file name (which includes the configuration, solver and
+	 * depth). A book is built by the first thread to ask for it, outside the map, and the others
+	 * wait on its future.
+	 */
+	private static final ConcurrentHashMap<String, CompletableFuture<OpeningBook>> books =
+			new ConcurrentHashMap<String, CompletableFuture<OpeningBook>>();
+
+	/*
+	 * How often a thread waiting for another thread's build checks its own cancel flag.
+	 */
+	private static final long WAIT_POLL_MILLIS = 50;
+
+	private final GameConfig config;
+	private final int depth;
+
+	/*
+	 * Sorted keys and the guess for each key. A key packs the number of moves played so far and
+	 * the score of each of those moves; see getKey.
+	 */
+	private final int[] keys;
+	private final int[] guesses;
+
+	/*
+	 * Constructor.
+	 */
+	private OpeningBook (GameConfig config, int depth, int[] keys, int[] guesses)
+	{
+		this.config = config;
+		this.depth = depth;
+		this.keys = keys;
+		this.guesses = guesses;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets the opening book for a configuration and solver. The book is loaded
+	 * from its file if that's valid, otherwise it's built (which runs the
+	 * solver) and saved.
+	 *
+	 * @param config puzzle configuration
+	 * @param solver solver whose moves are kept
+	 * @param depth number of moves to keep, from 1 to <code>MAX_DEPTH</code>
+	 * @return opening book
+	 */
+	public static OpeningBook forConfig (GameConfig config, Solver solver, int depth)
+	{
+		return forConfig(config, solver, depth, () -> false);
+	}
+
+	/**
+	 * Gets the opening book for a configuration and solver, giving up if it
+	 * has to be built and the build is cancelled. A cancelled build is not
+	 * saved, so the next request starts it again.
+	 * <p>
+	 * If another thread is already building the book, this waits for it. If
+	 * that build is cancelled or fails, this thread builds the book itself.
+	 * A book that can't be saved is still returned, and is kept in memory.
+	 *
+	 * @param config puzzle configuration
+	 * @param solver solver whose moves are kept
+	 * @param depth number of moves to keep, from 1 to <code>MAX_DEPTH</code>
+	 * @param cancelled checked by the solver while the book is built
+	 * @return opening book
+	 * @throws CancellationException If the build was cancelled.
+	 */
+	public static OpeningBook forConfig (GameConfig config, Solver solver, int depth, BooleanSupplier cancelled)
+	{
+		if (depth < 1 || depth > MAX_DEPTH)
+		{
+			throw new IllegalArgumentException("Unsupported book depth " + depth);
+		}
+
+		String fileName = BOOK_FILE_PREFIX + config.getName() + "-" + getSolverName(solver)
+				+ "-" + depth + BOOK_FILE_SUFFIX;
+
+		while (true)
+		{
+
+			/*
+			 * Claim the book, or find the thread that already has.
+			 */
+			CompletableFuture<OpeningBook> claim = new CompletableFuture<OpeningBook>();
+			CompletableFuture<OpeningBook> future = books.putIfAbsent(fileName, claim);
+			if (future == null)
+			{
+				return loadOrBuild(fileName, claim, config, solver, depth, cancelled);
+			}
+
+			/*
+			 * Wait for the other thread, while watching this thread's own cancel flag. If its build
+			 * didn't finish, its entry is gone, so try again.
+			 */
+			try
+			{
+				return waitForBook(future, cancelled);
+			}
+			catch (ExecutionException e)
+			{
+				continue;
+			}
+		}
+	}
+
+	/**
+	 * Gets the book's guess for the next move of a game.
+	 *
+	 * @param session game in progress
+	 * @return packed guess code, or -1 if the game has gone past the book, or
+	 * left it by making a guess that isn't the book's
+	 */
+	public int lookup (GameSession session)
+	{
+		if (session.getConfig().equals(config) == false || session.getGuessCount() >= depth)
+		{
+			return -1;
+		}
+
+		/*
+		 * Walk the book along the game's scores, checking that every guess was the book's.
+		 */
+		for (int i = 0; i <= session.getGuessCount(); i++)
+		{
+			int index = Arrays.binarySearch(keys, getKey(session, i));
+			if (index < 0)
+			{
+				return -1;
+			}
+
+			if (i == session.getGuessCount())
+			{
+				return guesses[index];
+			}
+
+			if (guesses[index] != session.getGuess(i))
+			{
+				return -1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets the number of positions in the book.
+	 *
+	 * @return number of positions
+	 */
+	public int getSize ()
+	{
+		return keys.length;
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Load a book claimed by this thread, or build it if it hasn't been saved, and complete its
+	 * future. If the build fails or is cancelled the entry is removed, so the next request starts
+	 * again.
+	 */
+	private static OpeningBook loadOrBuild (String fileName, CompletableFuture<OpeningBook> future,
+			GameConfig config, Solver solver, int depth, BooleanSupplier cancelled)
+	{
+		OpeningBook book;
+		try
+		{
+			Path file = Options.getDataDirectory().resolve(fileName);
+			book = load(file, config, solver, depth);
+			if (book == null)
+			{
+				book = build(config, solver, depth, cancelled);
+
+				try
+				{
+					book.save(file, solver);
+				}
+				catch (IOException e)
+				{
+
+					/*
+					 * A book that can't be saved still works. It's kept in memory, and the next run
+					 * just builds it again.
+					 */
+				}
+			}
+		}
+		catch (RuntimeException | Error e)
+		{
+			books.remove(fileName, future);
+			future.completeExceptionally(e);
+			throw e;
+		}
+
+		future.complete(book);
+
+		return book;
+	}
+
+	/*
+	 * Wait for a book being built by another thread, giving up if this thread is cancelled.
+	 */
+	private static OpeningBook waitForBook (CompletableFuture<OpeningBook> future, BooleanSupplier cancelled)
+			throws ExecutionException
+	{
+		while (true)
+		{
+			if (cancelled.getAsBoolean() == true)
+			{
+				throw new CancellationException();
+			}
+
+			try
+			{
+				return future.get(WAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (TimeoutException e)
+			{
+
+				/*
+				 * Still building, so check the cancel flag again.
+				 */
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new CancellationException();
+			}
+		}
+	}
+
+	/*
+	 * Build a book by playing the solver against a representative puzzle for every possible run of
+	 * scores. The solver's choice only depends on the guesses and scores so far, so any puzzle that
+	 * produces those scores will do.
+	 */
+	private static OpeningBook build (GameConfig config, Solver solver, int depth, BooleanSupplier cancelled)
+	{
+		CodeSpace codeSpace = CodeSpace.forConfig(config);
+		int numGuesses = depth + 1;
+		int[] keys = new int[codeSpace.getSize() < 64 ? 64 : 1024];
+		int[] guesses = new int[keys.length];
+		int size = 0;
+
+		/*
+		 * Positions still to be expanded, each one given by a representative puzzle and the number of
+		 * moves played on the way to it.
+		 */
+		int[] pendingPuzzles = new int[] { codeSpace.getCode(0) };
+		int[] pendingMoves = new int[] { 0 };
+		int numPending = 1;
+
+		while (numPending > 0)
+		{
+			numPending--;
+			int puzzle = pendingPuzzles[numPending];
+			int numMoves = pendingMoves[numPending];
+
+			/*
+			 * Replay the book's moves against the puzzle to get to this position, then ask the solver.
+			 */
+			GameSession session = new GameSession(config, numGuesses, puzzle);
+			for (int i = 0; i < numMoves; i++)
+			{
+				session.submitGuess(guesses[Arrays.binarySearch(keys, 0, size, getKey(session, i))]);
+			}
+
+			if (session.isOver() == true)
+			{
+				continue;
+			}
+
+			int guess = solver.chooseGuess(session, cancelled);
+			int key = getKey(session, numMoves);
+
+			if (size == keys.length)
+			{
+				keys = Arrays.copyOf(keys, size * 2);
+				guesses = Arrays.copyOf(guesses, size * 2);
+			}
+
+			/*
+			 * Insert the entry in key order, so later replays can binary search.
+			 */
+			int insertAt = -Arrays.binarySearch(keys, 0, size, key) - 1;
+			System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+			System.arraycopy(guesses, insertAt, guesses, insertAt + 1, size - insertAt);
+			keys[insertAt] = key;
+			guesses[insertAt] = guess;
+			size++;
+
+			/*
+			 * Queue one representative puzzle for each score the guess can receive.
+			 */
+			if (numMoves + 1 < depth)
+			{
+				CandidateSet candidates = session.getCandidates();
+				int[] seenScores = new int[CodeScorer.SCORE_LIMIT];
+				for (int index = candidates.nextIndex(0); index >= 0; index = candidates.nextIndex(index + 1))
+				{
+					int code = codeSpace.getCode(index);
+					int score = CodeScorer.score(code, guess, config.getNumHoles());
+					if (seenScores[score]++ == 0 && CodeScorer.getNumBlack(score) < config.getNumHoles())
+					{
+						if (numPending == pendingPuzzles.length)
+						{
+							pendingPuzzles = Arrays.copyOf(pendingPuzzles, numPending * 2);
+							pendingMoves = Arrays.copyOf(pendingMoves, numPending * 2);
+						}
+						pendingPuzzles[numPending] = code;
+						pendingMoves[numPending] = numMoves + 1;
+						numPending++;
+					}
+				}
+			}
+		}
+
+		return new OpeningBook(config, depth, Arrays.copyOf(keys, size), Arrays.copyOf(guesses, size));
+	}
+
+	/*
+	 * Load a book file, returning null if it's missing or not valid for this configuration, solver
+	 * and depth.
+	 */
+	private static OpeningBook load (Path file, GameConfig config, Solver solver, int depth)
+	{
+		try
+		{
+			if (Files.exists(file) == false)
+			{
+				return null;
+			}
+
+			/*
+			 * The checksum covers everything before it.
+			 */
+			byte[] bytes = Files.readAllBytes(file);
+			if (bytes.length < Long.BYTES)
+			{
+				return null;
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length - Long.BYTES);
+			if (ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong() != crc.getValue())
+			{
+				return null;
+			}
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION
+					|| in.readUTF().equals(config.getName()) == false
+					|| in.readUTF().equals(getSolverName(solver)) == false
+					|| in.readInt() != depth)
+			{
+				return null;
+			}
+
+			int size = in.readInt();
+			int[] keys = new int[size];
+			int[] guesses = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				keys[i] = in.readInt();
+				guesses[i] = in.readInt();
+			}
+
+			return new OpeningBook(config, depth, keys, guesses);
+		}
+
+		/*
+		 * A truncated or unreadable file is treated like a stale one, and gets rebuilt.
+		 */
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+
+	/*
+	 * Save the book to a file. It's written under a temporary name and renamed, so a partial file is
+	 * never loaded.
+	 */
+	private void save (Path file, Solver solver)
+			throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(FILE_MAGIC);
+		out.writeInt(FILE_VERSION);
+		out.writeUTF(config.getName());
+		out.writeUTF(getSolverName(solver));
+		out.writeInt(depth);
+		out.writeInt(keys.length);
+		for (int i = 0; i < keys.length; i++)
+		{
+			out.writeInt(keys[i]);
+			out.writeInt(guesses[i]);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+
+		Files.createDirectories(file.getParent());
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(tempFile, bytes.toByteArray());
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/*
+	 * Build the key for the position after a number of moves of a game. The key packs the number of
+	 * moves in the high byte, and the score of each move in the lower bytes.
+	 */
+	private static int getKey (GameSession session, int numMoves)
+	{
+		int key = numMoves << 24;
+		for (int i = 0; i < numMoves; i++)
+		{
+			key |= session.getScore(i) << (i * 8);
+		}
+
+		return key;
+	}
+
+	/*
+	 * Get the name that identifies a solver in book files.
+	 */
+	private static String getSolverName (Solver solver)
+	{
+		return solver.getClass().getSimpleName();
+	}
+}
@@ -1,7 +1,21 @@
 package mastermind;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
+import java.util.prefs.BackingStoreException;
+
 /**
  * Class that represents game options. This is a singleton class.
+ * <p>
+ * The options themselves are an immutable <code>OptionsSnapshot</code>,
+ * published through a volatile reference. Readers never lock and never see
+ * half of a change: anything that needs more than one option should get the
+ * snapshot once and read it, rather than calling several getters. A change
+ * commits a whole new snapshot, and then tells the registered listeners.
+ * Games already in progress keep the options they were started with.
  * 
  * @author Jon
  *
@@ -12,9 +26,10 @@ public final class Options
     //---------------- Singleton implementation ----------------------------
 	
 	/*
-	 * Singleton class instance variable.
+	 * Singleton class instance variable. It's created when the class is initialized, which the JVM
+	 * guarantees happens exactly once, whichever thread gets there first.
 	 */
-	private static Options instance = null;
+	private static final Options instance = new Options();
 	
 	/**
 	 * Gets the singleton instance.
@@ -23,11 +38,6 @@ public final class Options
 	 */
 	public static Options getInstance ()
 	{
-		if (instance == null)
-		{
-			instance = new Options();
-		}
-		
 		return instance;
 	}
 	
@@ -41,32 +51,35 @@ public final class Options
 	public static final String JAVA_PREFS_KEY_NUM_GUESSES = "NUM_GUESSES";
 	public static final String JAVA_PREFS_KEY_DUPS_ALLOWED = "DUPS_ALLOWED";
 	public static final String JAVA_PREFS_KEY_BLANKS_ALLOWED = "BLANKS_ALLOWED";
+	
+	/**
+	 * Name of the directory, under the user's home directory, that holds game data files
+	 * such as caches.
+	 */
+	public static final String DATA_DIRECTORY_NAME = ".mastermind";
 
     //---------------- Class variables -------------------------------------
 	
 	/*
-	 * Variables for the actual options we want to serialize.
-	 * 
-	 * - number of game colors
-	 * - number of holes in the puzzle
-	 * - number of guesses allowed
-	 * - if duplicate colors are allowed
-	 * - if blanks (no peg) are allowed
+	 * The current options. A snapshot is never changed, only replaced.
+	 */
+	private volatile OptionsSnapshot snapshot;
+	
+	/*
+	 * Listeners to tell about new snapshots. Listeners are rarely added, and the list is walked on
+	 * every commit, so a copy on write list suits it.
 	 */
-	private int numColors;
-	private int numHoles;
-	private int numGuesses;
-	private boolean dupsAllowed;
-	private boolean blanksAllowed;
+	private final List<OptionsListener> listeners = new CopyOnWriteArrayList<OptionsListener>();
 	
 	/*
-	 * Defaults.
+	 * Lock held while committing, so commits are made one at a time. Readers never take it.
 	 */
-	private static final int DEFAULT_NUM_COLORS = NumColors.EIGHT.getNumColorsValue();
-	private static final int DEFAULT_NUM_HOLES = NumHoles.FIVE.getNumHolesValue();
-	private static final int DEFAULT_NUM_GUESSES = NumGuesses.TWELVE.getNumGuessesValue();
-	private static final boolean DEFAULT_DUPS_ALLOWED = true;
-	private static final boolean DEFAULT_BLANKS_ALLOWED = false;
+	private final Object commitLock = new Object();
+	
+	/*
+	 * Where the options are saved.
+	 */
+	private volatile OptionsStore store = OptionsStore.forUser();
 	
 	/**
 	 * The number of colors used.
@@ -216,7 +229,7 @@ public final class Options
 	
 	/**
 	 * The available color choices. These are defined as integer values that
-	 * map to *.png files for the different colored pegs.
+	 * map to the colored peg images in <code>PegImages</code>.
 	 */
 	public enum Colors
 	{
@@ -292,88 +305,93 @@ public final class Options
 	 */
 	private Options ()
 	{
+		snapshot = OptionsSnapshot.DEFAULTS;
 	}
 	
     //---------------- Getters and setters ---------------------------------
 
 	/**
-	 * Gets the number of colors.
+	 * Gets the store the options are read from and saved to.
 	 * 
-	 * @return number of colors
+	 * @return options store
 	 */
-	public int getNumColors()
+	public OptionsStore getStore ()
 	{
-		return numColors;
+		return store;
 	}
 
 	/**
-	 * Sets the number of colors.
+	 * Sets the store the options are read from and saved to. This is normally
+	 * the user's preferences, but can be an in-memory store, for example for
+	 * tests and benchmarks.
 	 * 
-	 * @param numColors number of colors
+	 * @param store options store
 	 */
-	public void setNumColors(int numColors)
+	public void setStore (OptionsStore store)
 	{
-		this.numColors = numColors;
+		this.store = store;
 	}
 
 	/**
-	 * Gets the number of holes (pegs).
+	 * Gets the directory that holds game data files. The directory is not created
+	 * by this method.
 	 * 
-	 * @return number of holes
+	 * @return game data directory
 	 */
-	public int getNumHoles()
+	public static Path getDataDirectory ()
 	{
-		return numHoles;
+		return Paths.get(System.getProperty("user.home"), DATA_DIRECTORY_NAME);
 	}
 
 	/**
-	 * Sets the number of holes (pegs).
+	 * Gets the current options. This is the way to read more than one option
+	 * consistently.
 	 * 
-	 * @param numHoles number of holes
+	 * @return current options
 	 */
-	public void setNumHoles(int numHoles)
+	public OptionsSnapshot getSnapshot ()
 	{
-		this.numHoles = numHoles;
+		return snapshot;
 	}
 
 	/**
-	 * Gets the number of user guesses.
+	 * Gets the number of colors.
 	 * 
-	 * @return number of guesses
+	 * @return number of colors
 	 */
-	public int getNumGuesses()
+	public int getNumColors ()
 	{
-		return numGuesses;
+		return snapshot.getNumColors();
 	}
 
 	/**
-	 * Sets the number of user guesses.
+	 * Gets the number of holes (pegs).
 	 * 
-	 * @param numGuesses number of guesses
+	 * @return number of holes
 	 */
-	public void setNumGuesses(int numGuesses)
+	public int getNumHoles ()
 	{
-		this.numGuesses = numGuesses;
+		return snapshot.getNumHoles();
 	}
 
 	/**
-	 * Gets the duplicates allowed flag.
+	 * Gets the number of user guesses.
 	 * 
-	 * @return duplicates allowed flag
+	 * @return number of guesses
 	 */
-	public boolean getDupsAllowed()
+	public int getNumGuesses ()
 	{
-		return dupsAllowed;
+		return snapshot.getNumGuesses();
 	}
 
 	/**
-	 * Sets the duplicates allowed flag.
+	 * Gets the duplicates allowed flag.
 	 * 
-	 * @param dupsAllowed duplicates allowed flag
+	 * @return duplicates allowed flag
 	 */
-	public void setDupsAllowed(boolean dupsAllowed)
+	public boolean getDupsAllowed ()
 	{
-		this.dupsAllowed = dupsAllowed;
+		return snapshot.getDupsAllowed();
 	}
 
 	/**
@@ -381,171 +399,106 @@ public final class Options
 	 * 
 	 * @return blanks allowed flag
 	 */
-	public boolean getBlanksAllowed()
+	public boolean getBlanksAllowed ()
 	{
-		return blanksAllowed;
+		return snapshot.getBlanksAllowed();
 	}
+	
+    //---------------- Public methods --------------------------------------
 
 	/**
-	 * Sets the blanks allowed flag.
+	 * Adds a listener that's told about every new set of options.
 	 * 
-	 * @param blanksAllowed blanks allowed flag
+	 * @param listener listener to add
 	 */
-	public void setBlanksAllowed(boolean blanksAllowed)
+	public void addOptionsListener (OptionsListener listener)
 	{
-		this.blanksAllowed = blanksAllowed;
+		listeners.add(listener);
 	}
-	
-	public void readJavaPreferences ()
+
+	/**
+	 * Removes an options listener.
+	 * 
+	 * @param listener listener to remove
+	 */
+	public void removeOptionsListener (OptionsListener listener)
 	{
-		numColors = accessJavaPreferenceInt(JAVA_PREFS_KEY_NUM_COLORS);
-		numHoles = accessJavaPreferenceInt(JAVA_PREFS_KEY_NUM_HOLES);
-		numGuesses = accessJavaPreferenceInt(JAVA_PREFS_KEY_NUM_GUESSES);
-		dupsAllowed = accessJavaPreferenceBoolean(JAVA_PREFS_KEY_DUPS_ALLOWED);
-		blanksAllowed = accessJavaPreferenceBoolean(JAVA_PREFS_KEY_BLANKS_ALLOWED);
+		listeners.remove(listener);
 	}
 	
 	/**
-	 * Accesses a Java integer preference for a given key. This method also 
-	 * sets the preference in case it was not currently set.
+	 * Commits a new set of options, and tells the listeners if anything
+	 * changed. The listeners are called on the committing thread, after the new
+	 * options are visible to every thread.
 	 * 
-	 * @param key key that represents the preference
-	 * @return value for the specified key
+	 * @param newSnapshot new options
+	 * @return previous options
 	 */
-	public int accessJavaPreferenceInt (String key)
+	public OptionsSnapshot commit (OptionsSnapshot newSnapshot)
 	{
-		int result;
-		
-		/*
-		 * Get the Java preferences node.
-		 */
-		java.util.prefs.Preferences javaPrefs;
-		javaPrefs = java.util.prefs.Preferences.userRoot().node(Options.class.getName());
-		
-		/*
-		 * Get the default value in case the Java preference doesn't exist.
-		 * 
-		 * NOTE: We don't expect an unknown key so we don't bother checking it.
-		 */
-		int defaultValue = 0;
-		switch (key)
-		{
-		case JAVA_PREFS_KEY_NUM_COLORS:
-			defaultValue = DEFAULT_NUM_COLORS;
-			break;
-
-		case JAVA_PREFS_KEY_NUM_HOLES:
-			defaultValue = DEFAULT_NUM_HOLES;
-			break;
-
-		case JAVA_PREFS_KEY_NUM_GUESSES:
-			defaultValue = DEFAULT_NUM_GUESSES;
-			break;
-			
-		default:
-		}
-		
-		/*
-		 * Get the Java preference value, or use the default.
-		 */
-		result = javaPrefs.getInt(key, defaultValue);
-		
-		/*
-		 * We have no way of knowing if the Java preference was set before, so unconditionally set it.
-		 */
-		javaPrefs.putInt(key, result);
-		
-        return result;
+		return update(current -> newSnapshot);
 	}
 	
 	/**
-	 * Accesses a Java boolean preference for a given key. This method also 
-	 * sets the preference in case it was not currently set.
+	 * Commits a change to the current options, and tells the listeners if
+	 * anything changed. Commits are made one at a time, so a change never
+	 * loses another one made at the same time.
 	 * 
-	 * @param key key that represents the preference
-	 * @return value for the specified key
+	 * @param change function that makes new options from the current ones
+	 * @return previous options
 	 */
-	public boolean accessJavaPreferenceBoolean (String key)
+	public OptionsSnapshot update (UnaryOperator<OptionsSnapshot> change)
 	{
-		boolean result;
-		
-		/*
-		 * Get the Java preferences node.
-		 */
-		java.util.prefs.Preferences javaPrefs;
-		javaPrefs = java.util.prefs.Preferences.userRoot().node(Options.class.getName());
+		OptionsSnapshot previous;
+		OptionsSnapshot current;
 		
-		/*
-		 * Get the default value in case the Java preference doesn't exist.
-		 * 
-		 * NOTE: We don't expect an unknown key so we don't bother checking it.
-		 */
-		boolean defaultValue = false;
-		switch (key)
+		synchronized (commitLock)
 		{
-		case JAVA_PREFS_KEY_DUPS_ALLOWED:
-			defaultValue = DEFAULT_DUPS_ALLOWED;
-			break;
-
-		case JAVA_PREFS_KEY_BLANKS_ALLOWED:
-			defaultValue = DEFAULT_BLANKS_ALLOWED;
-			break;
-			
-		default:
+			previous = snapshot;
+			current = change.apply(previous);
+			snapshot = current;
 		}
 		
-		/*
-		 * Get the Java preference value, or use the default.
-		 */
-		result = javaPrefs.getBoolean(key, defaultValue);
-		
-		/*
-		 * We have no way of knowing if the Java preference was set before, so unconditionally set it.
-		 */
-		javaPrefs.putBoolean(key, result);
+		if (current.equals(previous) == false)
+		{
+			for (OptionsListener listener : listeners)
+			{
+				listener.optionsChanged(previous, current);
+			}
+		}
 		
-        return result;
+		return previous;
 	}
 	
 	/**
-	 * Saves a Java integer preference for a given key.
-	 * 
-	 * @param key key that represents the preference
-	 * @param value value for the specified key
+	 * Reads the game options from the options store. Options that were never
+	 * saved take their defaults. Nothing is written.
 	 */
-	public void saveJavaPreferenceInt (String key, int value)
+	public void readJavaPreferences ()
 	{
-		
-		/*
-		 * Get the Java preferences node.
-		 */
-		java.util.prefs.Preferences javaPrefs;
-		javaPrefs = java.util.prefs.Preferences.userRoot().node(Options.class.getName());
-
-		/*
-		 * Save the java preference value.
-		 */
-		javaPrefs.putInt(key, value);
+		commit(store.load());
 	}
 	
 	/**
-	 * Saves a Java boolean preference for a given key.
+	 * Saves the game options to the options store. Only the options that have
+	 * changed since they were read or last saved are written, in one batch.
 	 * 
-	 * @param key key that represents the preference
-	 * @param value value for the specified key
+	 * @return number of options written
+	 * @throws BackingStoreException If the options can't be written.
 	 */
-	public void saveJavaPreferenceBoolean (String key, boolean value)
+	public int saveJavaPreferences ()
+			throws BackingStoreException
 	{
 		
 		/*
-		 * Get the Java preferences node.
+		 * Read the options while holding the store's lock, so saves racing each other can't leave
+		 * older options in the store than the ones committed last.
 		 */
-		java.util.prefs.Preferences javaPrefs;
-		javaPrefs = java.util.prefs.Preferences.userRoot().node(Options.class.getName());
-
-		/*
-		 * Save the java preference value.
-		 */
-		javaPrefs.putBoolean(key, value);
+		OptionsStore currentStore = store;
+		synchronized (currentStore)
+		{
+			currentStore.setSnapshot(snapshot);
+			return currentStore.flush();
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package mastermind;
+
+/**
+ * Interface for classes that want to know when new game options are
+ * committed.
+ *
+ * @author Jon
+ *
+ */
+public interface OptionsListener
+{
+
+	/**
+	 * Called after new game options are committed. It's called on the thread
+	 * that committed them, and only when something actually changed.
+	 *
+	 * @param previous options before the commit
+	 * @param current options after the commit
+	 */
+	void optionsChanged (OptionsSnapshot previous, OptionsSnapshot current);
+}
@@ -0,0 +1,193 @@
+package mastermind;
+
+/**
+ * Class that holds one set of values of the game options. It's immutable, so
+ * a snapshot can be shared freely; the <code>with</code> methods return a new
+ * snapshot with one value changed.
+ *
+ * @author Jon
+ *
+ */
+public final class OptionsSnapshot
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Snapshot of the default game options, used for any option that hasn't
+	 * been saved.
+	 */
+	public static final OptionsSnapshot DEFAULTS = new OptionsSnapshot(
+			Options.NumColors.EIGHT.getNumColorsValue(),
+			Options.NumHoles.FIVE.getNumHolesValue(),
+			Options.NumGuesses.TWELVE.getNumGuessesValue(),
+			true, false);
+
+    //---------------- Class variables -------------------------------------
+
+	private final int numColors;
+	private final int numHoles;
+	private final int numGuesses;
+	private final boolean dupsAllowed;
+	private final boolean blanksAllowed;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param numColors number of colors
+	 * @param numHoles number of holes
+	 * @param numGuesses number of guesses
+	 * @param dupsAllowed duplicates allowed flag
+	 * @param blanksAllowed blanks allowed flag
+	 */
+	public OptionsSnapshot (int numColors, int numHoles, int numGuesses, boolean dupsAllowed,
+			boolean blanksAllowed)
+	{
+		this.numColors = numColors;
+		this.numHoles = numHoles;
+		this.numGuesses = numGuesses;
+		this.dupsAllowed = dupsAllowed;
+		this.blanksAllowed = blanksAllowed;
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the number of colors.
+	 *
+	 * @return number of colors
+	 */
+	public int getNumColors ()
+	{
+		return numColors;
+	}
+
+	/**
+	 * Gets a snapshot with a different number of colors.
+	 *
+	 * @param numColors number of colors
+	 * @return new snapshot
+	 */
+	public OptionsSnapshot withNumColors (int numColors)
+	{
+		return new OptionsSnapshot(numColors, numHoles, numGuesses, dupsAllowed, blanksAllowed);
+	}
+
+	/**
+	 * Gets the number of holes (pegs).
+	 *
+	 * @return number of holes
+	 */
+	public int getNumHoles ()
+	{
+		return numHoles;
+	}
+
+	/**
+	 * Gets a snapshot with a different number of holes (pegs).
+	 *
+	 * @param numHoles number of holes
+	 * @return new snapshot
+	 */
+	public OptionsSnapshot withNumHoles (int numHoles)
+	{
+		return new OptionsSnapshot(numColors, numHoles, numGuesses, dupsAllowed, blanksAllowed);
+	}
+
+	/**
+	 * Gets the number of user guesses.
+	 *
+	 * @return number of guesses
+	 */
+	public int getNumGuesses ()
+	{
+		return numGuesses;
+	}
+
+	/**
+	 * Gets a snapshot with a different number of user guesses.
+	 *
+	 * @param numGuesses number of guesses
+	 * @return new snapshot
+	 */
+	public OptionsSnapshot withNumGuesses (int numGuesses)
+	{
+		return new OptionsSnapshot(numColors, numHoles, numGuesses, dupsAllowed, blanksAllowed);
+	}
+
+	/**
+	 * Gets the duplicates allowed flag.
+	 *
+	 * @return duplicates allowed flag
+	 */
+	public boolean getDupsAllowed ()
+	{
+		return dupsAllowed;
+	}
+
+	/**
+	 * Gets a snapshot with a different duplicates allowed flag.
+	 *
+	 * @param dupsAllowed duplicates allowed flag
+	 * @return new snapshot
+	 */
+	public OptionsSnapshot withDupsAllowed (boolean dupsAllowed)
+	{
+		return new OptionsSnapshot(numColors, numHoles, numGuesses, dupsAllowed, blanksAllowed);
+	}
+
+	/**
+	 * Gets the blanks allowed flag.
+	 *
+	 * @return blanks allowed flag
+	 */
+	public boolean getBlanksAllowed ()
+	{
+		return blanksAllowed;
+	}
+
+	/**
+	 * Gets a snapshot with a different blanks allowed flag.
+	 *
+	 * @param blanksAllowed blanks allowed flag
+	 * @return new snapshot
+	 */
+	public OptionsSnapshot withBlanksAllowed (boolean blanksAllowed)
+	{
+		return new OptionsSnapshot(numColors, numHoles, numGuesses, dupsAllowed, blanksAllowed);
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	@Override
+	public boolean equals (Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+
+		if (!(obj instanceof OptionsSnapshot))
+		{
+			return false;
+		}
+
+		OptionsSnapshot other = (OptionsSnapshot) obj;
+		return numColors == other.numColors && numHoles == other.numHoles && numGuesses == other.numGuesses
+				&& dupsAllowed == other.dupsAllowed && blanksAllowed == other.blanksAllowed;
+	}
+
+	@Override
+	public int hashCode ()
+	{
+		return ((numColors * 31 + numHoles) * 31 + numGuesses) * 4
+				+ ((dupsAllowed == true) ? 2 : 0) + ((blanksAllowed == true) ? 1 : 0);
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "colors=" + numColors + " holes=" + numHoles + " guesses=" + numGuesses
+				+ " dups=" + dupsAllowed + " blanks=" + blanksAllowed;
+	}
+}
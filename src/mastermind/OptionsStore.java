@@ -0,0 +1,270 @@
+package mastermind;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Class that saves the game options in a Java preferences node.
+ * <p>
+ * The node is read once, by <code>load</code>. After that, changes are made
+ * to the store's snapshot, and the store tracks which options differ from
+ * what was last saved. Nothing is written to the node until
+ * <code>flush</code>, which writes only the changed options and then flushes
+ * the node once. Options that were never saved simply take their defaults,
+ * so reading the options writes nothing at all.
+ * <p>
+ * The store normally uses the user preferences, but any node can be given,
+ * including an in-memory one that never touches the backing store.
+ * <p>
+ * All the methods synchronize on the store, so a caller can hold the store's
+ * lock to make several calls in a row without another thread in between.
+ *
+ * @author Jon
+ *
+ */
+public final class OptionsStore
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Bits in the mask of changed options.
+	 */
+	private static final int DIRTY_NUM_COLORS = 1 << 0;
+	private static final int DIRTY_NUM_HOLES = 1 << 1;
+	private static final int DIRTY_NUM_GUESSES = 1 << 2;
+	private static final int DIRTY_DUPS_ALLOWED = 1 << 3;
+	private static final int DIRTY_BLANKS_ALLOWED = 1 << 4;
+
+	private final Preferences node;
+
+	/*
+	 * The options as last loaded or saved, the options as they are now, and a mask of the ones
+	 * that differ.
+	 */
+	private OptionsSnapshot saved;
+	private OptionsSnapshot current;
+	private int dirty;
+
+	/**
+	 * Class constructor specifying the preferences node.
+	 *
+	 * @param node preferences node that holds the options
+	 */
+	public OptionsStore (Preferences node)
+	{
+		this.node = node;
+
+		saved = OptionsSnapshot.DEFAULTS;
+		current = OptionsSnapshot.DEFAULTS;
+		dirty = 0;
+	}
+
+	/**
+	 * Creates a store for the user's game options.
+	 *
+	 * @return new store
+	 */
+	public static OptionsStore forUser ()
+	{
+		return new OptionsStore(Preferences.userRoot().node(Options.class.getName()));
+	}
+
+	/**
+	 * Creates a store that keeps the options in memory only. Nothing is ever
+	 * written to the backing store.
+	 *
+	 * @return new store
+	 */
+	public static OptionsStore inMemory ()
+	{
+		return new OptionsStore(new MemoryPreferences());
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the current options, including changes that haven't been flushed.
+	 *
+	 * @return current options
+	 */
+	public synchronized OptionsSnapshot getSnapshot ()
+	{
+		return current;
+	}
+
+	/**
+	 * Sets the current options. Only the options that differ from the saved
+	 * ones are written by the next flush.
+	 *
+	 * @param snapshot new options
+	 */
+	public synchronized void setSnapshot (OptionsSnapshot snapshot)
+	{
+		current = snapshot;
+
+		dirty = 0;
+		dirty |= (snapshot.getNumColors() != saved.getNumColors()) ? DIRTY_NUM_COLORS : 0;
+		dirty |= (snapshot.getNumHoles() != saved.getNumHoles()) ? DIRTY_NUM_HOLES : 0;
+		dirty |= (snapshot.getNumGuesses() != saved.getNumGuesses()) ? DIRTY_NUM_GUESSES : 0;
+		dirty |= (snapshot.getDupsAllowed() != saved.getDupsAllowed()) ? DIRTY_DUPS_ALLOWED : 0;
+		dirty |= (snapshot.getBlanksAllowed() != saved.getBlanksAllowed()) ? DIRTY_BLANKS_ALLOWED : 0;
+	}
+
+	/**
+	 * Checks if any options have changed since they were last loaded or
+	 * saved.
+	 *
+	 * @return true if there are changes to flush
+	 */
+	public synchronized boolean isDirty ()
+	{
+		return dirty != 0;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Reads the options from the preferences node. Options that aren't in the
+	 * node take their defaults. Any changes that weren't flushed are lost.
+	 *
+	 * @return options read
+	 */
+	public synchronized OptionsSnapshot load ()
+	{
+		OptionsSnapshot defaults = OptionsSnapshot.DEFAULTS;
+
+		saved = new OptionsSnapshot(
+				node.getInt(Options.JAVA_PREFS_KEY_NUM_COLORS, defaults.getNumColors()),
+				node.getInt(Options.JAVA_PREFS_KEY_NUM_HOLES, defaults.getNumHoles()),
+				node.getInt(Options.JAVA_PREFS_KEY_NUM_GUESSES, defaults.getNumGuesses()),
+				node.getBoolean(Options.JAVA_PREFS_KEY_DUPS_ALLOWED, defaults.getDupsAllowed()),
+				node.getBoolean(Options.JAVA_PREFS_KEY_BLANKS_ALLOWED, defaults.getBlanksAllowed()));
+		current = saved;
+		dirty = 0;
+
+		return saved;
+	}
+
+	/**
+	 * Writes the changed options to the preferences node, and flushes the node
+	 * to the backing store. Nothing is written if nothing has changed.
+	 *
+	 * @return number of options written
+	 * @throws BackingStoreException If the backing store can't be written.
+	 */
+	public synchronized int flush ()
+			throws BackingStoreException
+	{
+		if (dirty == 0)
+		{
+			return 0;
+		}
+
+		if ((dirty & DIRTY_NUM_COLORS) != 0)
+		{
+			node.putInt(Options.JAVA_PREFS_KEY_NUM_COLORS, current.getNumColors());
+		}
+		if ((dirty & DIRTY_NUM_HOLES) != 0)
+		{
+			node.putInt(Options.JAVA_PREFS_KEY_NUM_HOLES, current.getNumHoles());
+		}
+		if ((dirty & DIRTY_NUM_GUESSES) != 0)
+		{
+			node.putInt(Options.JAVA_PREFS_KEY_NUM_GUESSES, current.getNumGuesses());
+		}
+		if ((dirty & DIRTY_DUPS_ALLOWED) != 0)
+		{
+			node.putBoolean(Options.JAVA_PREFS_KEY_DUPS_ALLOWED, current.getDupsAllowed());
+		}
+		if ((dirty & DIRTY_BLANKS_ALLOWED) != 0)
+		{
+			node.putBoolean(Options.JAVA_PREFS_KEY_BLANKS_ALLOWED, current.getBlanksAllowed());
+		}
+
+		node.flush();
+
+		int numWritten = Integer.bitCount(dirty);
+		saved = current;
+		dirty = 0;
+
+		return numWritten;
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/*
+	 * Preferences node that keeps its values in a map, with no backing store.
+	 */
+	private static final class MemoryPreferences extends AbstractPreferences
+	{
+		private final Map<String, String> values = new HashMap<String, String>();
+		private final Map<String, MemoryPreferences> children = new HashMap<String, MemoryPreferences>();
+
+		private MemoryPreferences ()
+		{
+			this(null, "");
+		}
+
+		private MemoryPreferences (MemoryPreferences parent, String name)
+		{
+			super(parent, name);
+		}
+
+		@Override
+		protected void putSpi (String key, String value)
+		{
+			values.put(key, value);
+		}
+
+		@Override
+		protected String getSpi (String key)
+		{
+			return values.get(key);
+		}
+
+		@Override
+		protected void removeSpi (String key)
+		{
+			values.remove(key);
+		}
+
+		@Override
+		protected void removeNodeSpi ()
+		{
+			values.clear();
+			children.clear();
+		}
+
+		@Override
+		protected String[] keysSpi ()
+		{
+			return values.keySet().toArray(new String[0]);
+		}
+
+		@Override
+		protected String[] childrenNamesSpi ()
+		{
+			return children.keySet().toArray(new String[0]);
+		}
+
+		@Override
+		protected AbstractPreferences childSpi (String name)
+		{
+			return children.computeIfAbsent(name, childName -> new MemoryPreferences(this, childName));
+		}
+
+		@Override
+		protected void syncSpi ()
+		{
+		}
+
+		@Override
+		protected void flushSpi ()
+		{
+		}
+	}
+}
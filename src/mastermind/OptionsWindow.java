@@ -3,7 +3,6 @@ package mastermind;
 import java.io.IOException;
 
 import org.apache.pivot.beans.BXML;
-import org.apache.pivot.beans.BXMLSerializer;
 import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.serialization.SerializationException;
@@ -77,6 +76,8 @@ public class OptionsWindow
     public void displayOptions (Display display) 
     		throws IOException, SerializationException
     {
+    	WindowOpenEvent openEvent = new WindowOpenEvent();
+    	openEvent.begin();
     	
     	/*
     	 * Get the BXML information for the puzzle options window.
@@ -93,6 +94,11 @@ public class OptionsWindow
 		blanksAllowedLabel.setText("Indicate if blank spaces are allowed.");
 		optionsDoneButton.setButtonData("Done");
 		
+		/*
+		 * Get the current options, to show them.
+		 */
+		OptionsSnapshot current = options.getSnapshot();
+		
 		/*
 		 * Set up the number of colors spinner.
 		 */
@@ -102,7 +108,7 @@ public class OptionsWindow
         numColorsSpinner.setSpinnerData(numColorsArray);
         numColorsSpinner.setCircular(true);
         
-        int index = numColorsArray.indexOf(Integer.toString(options.getNumColors()));
+        int index = numColorsArray.indexOf(Integer.toString(current.getNumColors()));
         numColorsSpinner.setSelectedIndex(index);
         
         /*
@@ -131,7 +137,7 @@ public class OptionsWindow
         numHolesSpinner.setSpinnerData(numHolesArray);
         numHolesSpinner.setCircular(true);
         
-        index = numHolesArray.indexOf(Integer.toString(options.getNumHoles()));
+        index = numHolesArray.indexOf(Integer.toString(current.getNumHoles()));
         numHolesSpinner.setSelectedIndex(index);
         
         /*
@@ -161,7 +167,7 @@ public class OptionsWindow
         numGuessesSpinner.setSpinnerData(numGuessesArray);
         numGuessesSpinner.setCircular(true);
         
-        index = numGuessesArray.indexOf(Integer.toString(options.getNumGuesses()));
+        index = numGuessesArray.indexOf(Integer.toString(current.getNumGuesses()));
         numGuessesSpinner.setSelectedIndex(index);
         
         /*
@@ -184,7 +190,7 @@ public class OptionsWindow
         /*
          * Set up the duplicates allowed checkbox.
          */
-        dupsAllowedCheckbox.setSelected(options.getDupsAllowed());
+        dupsAllowedCheckbox.setSelected(current.getDupsAllowed());
         
         /*
          * Listener to handle the duplicates allowed checkbox.
@@ -201,7 +207,7 @@ public class OptionsWindow
         /*
          * Set up the blanks allowed checkbox.
          */
-        blanksAllowedCheckbox.setSelected(options.getBlanksAllowed());
+        blanksAllowedCheckbox.setSelected(current.getBlanksAllowed());
         
         /*
          * Listener to handle the blanks allowed checkbox.
@@ -224,16 +230,18 @@ public class OptionsWindow
             public void buttonPressed(Button button)
             {
             	
+            	/*
+            	 * Start from the current options, and apply the changes the user made.
+            	 */
+            	OptionsSnapshot snapshot = options.getSnapshot();
+            	
             	/*
             	 * Handle a change to the number of colors option.
             	 */
             	if (numColorsUpdated == true)
             	{
             		String numColorsOption = (String) numColorsSpinner.getSelectedItem();
-            		int numColorsValue = Integer.valueOf(numColorsOption);
-            		
-            		options.setNumColors(numColorsValue);
-            		options.saveJavaPreferenceInt(Options.JAVA_PREFS_KEY_NUM_COLORS, numColorsValue);
+            		snapshot = snapshot.withNumColors(Integer.valueOf(numColorsOption));
             	}
             	
             	/*
@@ -242,10 +250,7 @@ public class OptionsWindow
             	if (numHolesUpdated == true)
             	{
             		String numHolesOption = (String) numHolesSpinner.getSelectedItem();
-            		int numHolesValue = Integer.valueOf(numHolesOption);
-            		
-            		options.setNumHoles(numHolesValue);
-            		options.saveJavaPreferenceInt(Options.JAVA_PREFS_KEY_NUM_HOLES, numHolesValue);
+            		snapshot = snapshot.withNumHoles(Integer.valueOf(numHolesOption));
             	}
             	
             	/*
@@ -254,10 +259,7 @@ public class OptionsWindow
             	if (numGuessesUpdated == true)
             	{
             		String numGuessesOption = (String) numGuessesSpinner.getSelectedItem();
-            		int numGuessesValue = Integer.valueOf(numGuessesOption);
-            		
-            		options.setNumGuesses(numGuessesValue);
-            		options.saveJavaPreferenceInt(Options.JAVA_PREFS_KEY_NUM_GUESSES, numGuessesValue);
+            		snapshot = snapshot.withNumGuesses(Integer.valueOf(numGuessesOption));
             	}
             	
             	/*
@@ -265,10 +267,7 @@ public class OptionsWindow
             	 */
             	if (dupsAllowedUpdated == true)
             	{
-            		boolean dupsAllowedOption = dupsAllowedCheckbox.isSelected();
-            		
-            		options.setDupsAllowed(dupsAllowedOption);
-            		options.saveJavaPreferenceBoolean(Options.JAVA_PREFS_KEY_DUPS_ALLOWED, dupsAllowedOption);
+            		snapshot = snapshot.withDupsAllowed(dupsAllowedCheckbox.isSelected());
             	}
             	
             	/*
@@ -276,16 +275,26 @@ public class OptionsWindow
             	 */
             	if (blanksAllowedUpdated == true)
             	{
-            		boolean blanksAllowedOption = blanksAllowedCheckbox.isSelected();
-            		
-            		options.setBlanksAllowed(blanksAllowedOption);
-            		options.saveJavaPreferenceBoolean(Options.JAVA_PREFS_KEY_BLANKS_ALLOWED, blanksAllowedOption);
+            		snapshot = snapshot.withBlanksAllowed(blanksAllowedCheckbox.isSelected());
             	}
             	
+            	/*
+            	 * Commit all the changes at once. The options listeners take it from there,
+            	 * including saving them.
+            	 */
+            	options.commit(snapshot);
+            	
             	/*
             	 * Close the options window.
             	 */
             	optionsWindow.close();
+            	
+            	WindowCloseEvent closeEvent = new WindowCloseEvent();
+            	if (closeEvent.shouldCommit() == true)
+            	{
+            		closeEvent.window = optionsWindow.getTitle();
+            		closeEvent.commit();
+            	}
             }
         });
 		
@@ -299,6 +308,11 @@ public class OptionsWindow
 		 */
     	optionsWindow.open(display);
     	
+    	if (openEvent.shouldCommit() == true)
+    	{
+    		openEvent.window = optionsWindow.getTitle();
+    		openEvent.commit();
+    	}
     }
 
     //---------------- Private methods -------------------------------------
@@ -310,31 +324,34 @@ public class OptionsWindow
     		throws IOException, SerializationException
     {
 		
-        BXMLSerializer windowSerializer = new BXMLSerializer();
-        optionsWindow = (Window)windowSerializer.
-        		readObject(getClass().getResource("optionsWindow.bxml"));
+        long start = Metrics.WINDOW_LOAD.start();
+
+        WindowLoader.LoadedWindow loadedWindow = WindowLoader.take("optionsWindow.bxml");
+        optionsWindow = loadedWindow.getWindow();
 
         numColorsLabel = 
-        		(Label)windowSerializer.getNamespace().get("numColorsLabel");
+        		(Label)loadedWindow.get("numColorsLabel");
         numColorsSpinner = 
-        		(Spinner)windowSerializer.getNamespace().get("numColorsSpinner");
+        		(Spinner)loadedWindow.get("numColorsSpinner");
         numHolesLabel = 
-        		(Label)windowSerializer.getNamespace().get("numHolesLabel");
+        		(Label)loadedWindow.get("numHolesLabel");
         numHolesSpinner = 
-        		(Spinner)windowSerializer.getNamespace().get("numHolesSpinner");
+        		(Spinner)loadedWindow.get("numHolesSpinner");
         numGuessesLabel = 
-        		(Label)windowSerializer.getNamespace().get("numGuessesLabel");
+        		(Label)loadedWindow.get("numGuessesLabel");
         numGuessesSpinner = 
-        		(Spinner)windowSerializer.getNamespace().get("numGuessesSpinner");
+        		(Spinner)loadedWindow.get("numGuessesSpinner");
         dupsAllowedLabel = 
-        		(Label)windowSerializer.getNamespace().get("dupsAllowedLabel");
+        		(Label)loadedWindow.get("dupsAllowedLabel");
         dupsAllowedCheckbox = 
-        		(Checkbox)windowSerializer.getNamespace().get("dupsAllowedCheckbox");
+        		(Checkbox)loadedWindow.get("dupsAllowedCheckbox");
         blanksAllowedLabel = 
-        		(Label)windowSerializer.getNamespace().get("blanksAllowedLabel");
+        		(Label)loadedWindow.get("blanksAllowedLabel");
         blanksAllowedCheckbox = 
-        		(Checkbox)windowSerializer.getNamespace().get("blanksAllowedCheckbox");
+        		(Checkbox)loadedWindow.get("blanksAllowedCheckbox");
         optionsDoneButton = 
-        		(PushButton)windowSerializer.getNamespace().get("optionsDoneButton");
+        		(PushButton)loadedWindow.get("optionsDoneButton");
+
+        Metrics.WINDOW_LOAD.stop(start);
     }
 }
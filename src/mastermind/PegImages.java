@@ -0,0 +1,222 @@
+package mastermind;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.concurrent.CompletableFuture;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pivot.wtk.media.Image;
+import org.apache.pivot.wtk.media.Picture;
+
+/**
+ * Class that holds the peg and clue images. This is a singleton class.
+ * <p>
+ * All the images are packed into one sprite atlas, <code>pegs.png</code>, on
+ * the class path. The atlas is decoded once, on a background thread started
+ * by <code>preload</code>, and cut into one image per sprite. After that,
+ * getting an image is just an <code>EnumMap</code> lookup.
+ * <p>
+ * The atlas layout is:
+ * <ul>
+ * <li>top row, 30 x 30 pixels each: the game pegs in <code>Options.Colors</code>
+ * order (white, black, red, green, blue, yellow, tan, pink, blank), then the
+ * empty hole (gray) and the hidden puzzle peg (x)</li>
+ * <li>bottom row, 12 x 12 pixels each: the black, white and empty (x) clue
+ * pegs</li>
+ * </ul>
+ *
+ * @author Jon
+ *
+ */
+public final class PegImages
+{
+
+    //---------------- Public variables ------------------------------------
+
+	/**
+	 * Peg images that aren't a color.
+	 */
+	public enum Marker
+	{
+
+		/**
+		 * Empty hole, not guessed yet.
+		 */
+		EMPTY,
+
+		/**
+		 * Puzzle peg that hasn't been revealed.
+		 */
+		HIDDEN
+	}
+
+	/**
+	 * Clue peg images.
+	 */
+	public enum Clue
+	{
+
+		/**
+		 * Right color in the right hole.
+		 */
+		BLACK,
+
+		/**
+		 * Right color in the wrong hole.
+		 */
+		WHITE,
+
+		/**
+		 * No clue.
+		 */
+		NONE
+	}
+
+    //---------------- Class variables -------------------------------------
+
+	private static final String ATLAS_NAME = "pegs.png";
+	private static final int PEG_SIZE = 30;
+	private static final int CLUE_SIZE = 12;
+
+	/*
+	 * Future for the images, created by the first preload.
+	 */
+	private static CompletableFuture<PegImages> loader = null;
+
+	private final EnumMap<Options.Colors, Image> pegs = new EnumMap<Options.Colors, Image>(Options.Colors.class);
+	private final EnumMap<Marker, Image> markers = new EnumMap<Marker, Image>(Marker.class);
+	private final EnumMap<Clue, Image> clues = new EnumMap<Clue, Image>(Clue.class);
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private PegImages (BufferedImage atlas)
+	{
+		int column = 0;
+		for (Options.Colors color : Options.Colors.values())
+		{
+			pegs.put(color, getSprite(atlas, column++, 0, PEG_SIZE));
+		}
+		for (Marker marker : Marker.values())
+		{
+			markers.put(marker, getSprite(atlas, column++, 0, PEG_SIZE));
+		}
+
+		column = 0;
+		for (Clue clue : Clue.values())
+		{
+			clues.put(clue, getSprite(atlas, column++, PEG_SIZE, CLUE_SIZE));
+		}
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Starts loading the images on a background thread, if that hasn't been
+	 * done already.
+	 *
+	 * @return future that completes with the images
+	 */
+	public static synchronized CompletableFuture<PegImages> preload ()
+	{
+		if (loader == null)
+		{
+			CompletableFuture<PegImages> future = new CompletableFuture<PegImages>();
+
+			Thread thread = new Thread(() ->
+			{
+				try
+				{
+					future.complete(new PegImages(readAtlas()));
+				}
+				catch (RuntimeException e)
+				{
+					future.completeExceptionally(e);
+				}
+			}, "PegImageLoader");
+			thread.setDaemon(true);
+			thread.start();
+
+			loader = future;
+		}
+
+		return loader;
+	}
+
+	/**
+	 * Gets the images, waiting for them to load if needed.
+	 *
+	 * @return peg images
+	 */
+	public static PegImages getInstance ()
+	{
+		return preload().join();
+	}
+
+	/**
+	 * Gets the image for a game peg.
+	 *
+	 * @param color peg color
+	 * @return peg image
+	 */
+	public Image getPeg (Options.Colors color)
+	{
+		return pegs.get(color);
+	}
+
+	/**
+	 * Gets the image for a peg that isn't a color.
+	 *
+	 * @param marker marker type
+	 * @return marker image
+	 */
+	public Image getMarker (Marker marker)
+	{
+		return markers.get(marker);
+	}
+
+	/**
+	 * Gets the image for a clue peg.
+	 *
+	 * @param clue clue type
+	 * @return clue image
+	 */
+	public Image getClue (Clue clue)
+	{
+		return clues.get(clue);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Read and decode the atlas from the class path.
+	 */
+	private static BufferedImage readAtlas ()
+	{
+		try (InputStream input = PegImages.class.getResourceAsStream(ATLAS_NAME))
+		{
+			if (input == null)
+			{
+				throw new IOException("Missing sprite atlas " + ATLAS_NAME);
+			}
+
+			return ImageIO.read(input);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * Cut a square sprite out of the atlas.
+	 */
+	private static Image getSprite (BufferedImage atlas, int column, int y, int size)
+	{
+		return new Picture(atlas.getSubimage(column * size, y, size, size));
+	}
+}
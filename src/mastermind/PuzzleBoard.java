@@ -0,0 +1,261 @@
+package mastermind;
+
+import java.awt.Font;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.HashMap;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.wtk.BoxPane;
+import org.apache.pivot.wtk.Label;
+import org.apache.pivot.wtk.PushButton;
+import org.apache.pivot.wtk.TablePane;
+import org.apache.pivot.wtk.media.Image;
+
+/**
+ * Class that holds the rows of a puzzle board: the puzzle row with its win/lose
+ * message, and the guess and clue buttons for every guess.
+ * <p>
+ * Boards are pooled. When a puzzle window closes, its board is detached from
+ * the window and kept, and the next game with the same number of holes and
+ * guesses takes it back and resets its images and attributes in place, instead
+ * of creating all the rows and buttons again. A board is only built when the
+ * number of holes or guesses has changed, or when the kept board is still in
+ * use by another puzzle window.
+ * <p>
+ * Boards are Pivot components, so they must only be used on the event thread.
+ *
+ * @author Jon
+ *
+ */
+public final class PuzzleBoard
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * The board kept from the last puzzle window that closed.
+	 */
+	private static PuzzleBoard spare = null;
+
+	private final int numHoles;
+	private final int numGuesses;
+
+	private final TablePane.Row puzzleRow;
+	private final List<PushButton> puzzleButtons;
+	private final Label messageLabel;
+	private final List<TablePane.Row> guessRows;
+	private final List<List<PushButton>> guessButtons;
+	private final List<List<PushButton>> clueButtons;
+
+	/*
+	 * Background of a guess button that hasn't been highlighted yet, taken from the first one built.
+	 */
+	private final Map<String, Object> pegBackgroundDefault;
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private PuzzleBoard (int numHoles, int numGuesses)
+	{
+		this.numHoles = numHoles;
+		this.numGuesses = numGuesses;
+
+		/*
+		 * Create the puzzle row. The images are set for each game.
+		 */
+		puzzleRow = new TablePane.Row();
+		puzzleButtons = new ArrayList<PushButton>(numHoles);
+		for (int i = 0; i < numHoles; i++)
+		{
+			PushButton button = new PushButton();
+			puzzleButtons.add(button);
+			puzzleRow.add(button);
+		}
+
+		/*
+		 * Create a label to display the win/lose message. The text is set when the game is over.
+		 */
+		Map<String, Object> styles = new HashMap<String, Object>();
+		styles.put("font", new Font(Font.SANS_SERIF, Font.BOLD, 24));
+		styles.put("color", 22);
+
+		messageLabel = new Label();
+		messageLabel.setStyles(styles);
+		puzzleRow.add(messageLabel);
+
+		/*
+		 * Create the guess rows, each with its guess buttons and a padded box of clue buttons.
+		 */
+		guessRows = new ArrayList<TablePane.Row>(numGuesses);
+		guessButtons = new ArrayList<List<PushButton>>(numGuesses);
+		clueButtons = new ArrayList<List<PushButton>>(numGuesses);
+
+		Map<String, Object> clueBoxStyles = new HashMap<String, Object>();
+		clueBoxStyles.put("padding", 5);
+
+		for (int i = 0; i < numGuesses; i++)
+		{
+			TablePane.Row guessRow = new TablePane.Row();
+			List<PushButton> guessRowButtons = new ArrayList<PushButton>(numHoles);
+			for (int j = 0; j < numHoles; j++)
+			{
+				PushButton button = new PushButton();
+				guessRowButtons.add(button);
+				guessRow.add(button);
+			}
+
+			BoxPane clueBox = new BoxPane();
+			clueBox.setStyles(clueBoxStyles);
+			List<PushButton> clueRowButtons = new ArrayList<PushButton>(numHoles);
+			for (int j = 0; j < numHoles; j++)
+			{
+				PushButton button = new PushButton();
+				clueRowButtons.add(button);
+				clueBox.add(button);
+			}
+			guessRow.add(clueBox);
+
+			guessRows.add(guessRow);
+			guessButtons.add(guessRowButtons);
+			clueButtons.add(clueRowButtons);
+		}
+
+		pegBackgroundDefault = new HashMap<String, Object>();
+		pegBackgroundDefault.put("backgroundColor",
+				guessButtons.get(0).get(0).getStyles().get("backgroundColor"));
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Gets the buttons of the puzzle row.
+	 *
+	 * @return puzzle buttons
+	 */
+	public List<PushButton> getPuzzleButtons ()
+	{
+		return puzzleButtons;
+	}
+
+	/**
+	 * Gets the label for the win/lose message.
+	 *
+	 * @return message label
+	 */
+	public Label getMessageLabel ()
+	{
+		return messageLabel;
+	}
+
+	/**
+	 * Gets the guess buttons, one list per guess row.
+	 *
+	 * @return guess buttons
+	 */
+	public List<List<PushButton>> getGuessButtons ()
+	{
+		return guessButtons;
+	}
+
+	/**
+	 * Gets the clue buttons, one list per guess row.
+	 *
+	 * @return clue buttons
+	 */
+	public List<List<PushButton>> getClueButtons ()
+	{
+		return clueButtons;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Gets a board for a new game. The kept board is reset and used if it has
+	 * the right number of holes and guesses, otherwise a new one is built.
+	 * Either way, every guess and clue button starts out empty, and no guess
+	 * row is highlighted.
+	 *
+	 * @param numHoles number of holes
+	 * @param numGuesses number of guesses
+	 * @param pegImages peg images
+	 * @return board ready for a new game
+	 */
+	public static PuzzleBoard acquire (int numHoles, int numGuesses, PegImages pegImages)
+	{
+		PuzzleBoard board = spare;
+		spare = null;
+
+		if (board == null || board.numHoles != numHoles || board.numGuesses != numGuesses)
+		{
+			board = new PuzzleBoard(numHoles, numGuesses);
+		}
+
+		board.reset(pegImages);
+
+		return board;
+	}
+
+	/**
+	 * Detaches a board from its table pane and keeps it for the next game.
+	 * Any board kept before is dropped.
+	 *
+	 * @param board board that's no longer in use
+	 */
+	public static void release (PuzzleBoard board)
+	{
+		TablePane tablePane = board.puzzleRow.getTablePane();
+		if (tablePane != null)
+		{
+			TablePane.RowSequence rows = tablePane.getRows();
+			rows.remove(0, rows.getLength());
+		}
+
+		spare = board;
+	}
+
+	/**
+	 * Adds the puzzle row and the guess rows to a table pane.
+	 *
+	 * @param tablePane table pane of the puzzle window
+	 */
+	public void attach (TablePane tablePane)
+	{
+		TablePane.RowSequence rows = tablePane.getRows();
+		rows.add(puzzleRow);
+		for (int i = 0; i < numGuesses; i++)
+		{
+			rows.add(guessRows.get(i));
+		}
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Put every guess and clue button back to empty, and clear the message. The puzzle row images
+	 * and background are set by the puzzle window for each game.
+	 */
+	private void reset (PegImages pegImages)
+	{
+		Image emptyImage = pegImages.getMarker(PegImages.Marker.EMPTY);
+		Image noClueImage = pegImages.getClue(PegImages.Clue.NONE);
+
+		for (int i = 0; i < numGuesses; i++)
+		{
+			List<PushButton> guessRow = guessButtons.get(i);
+			List<PushButton> clueRow = clueButtons.get(i);
+			for (int j = 0; j < numHoles; j++)
+			{
+				PushButton button = guessRow.get(j);
+				button.setButtonData(emptyImage);
+				button.setAttribute(PuzzleWindow.PuzzleAttributes.COLOR_VALUE, null);
+				button.setStyles(pegBackgroundDefault);
+				button.setDropTarget(null);
+
+				clueRow.get(j).setButtonData(noClueImage);
+			}
+		}
+
+		messageLabel.setText("");
+	}
+}
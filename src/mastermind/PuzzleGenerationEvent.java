@@ -0,0 +1,29 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for generating the puzzle
+ * for a new game.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.PuzzleGeneration")
+@Label("Puzzle Generation")
+@Category("Mastermind")
+@Description("Generating the puzzle for a new game")
+@StackTrace(false)
+final class PuzzleGenerationEvent extends Event
+{
+	@Label("Configuration")
+	String config;
+
+	@Label("Guesses Allowed")
+	int numGuesses;
+}
@@ -0,0 +1,107 @@
+package mastermind;
+
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Class that generates random puzzles for a configuration. Every hole value
+ * the configuration allows is equally likely in every hole, which includes
+ * the blank value when blanks are allowed.
+ * <p>
+ * When duplicates are allowed, each hole is drawn directly. When they're not,
+ * the values are drawn with a partial Fisher-Yates shuffle of a palette of
+ * all the values, so each hole takes exactly one random number and there is
+ * never a retry.
+ * <p>
+ * The random number generator is supplied by the caller, so a seeded
+ * generator produces the same puzzles every time. A generator keeps its
+ * palette between puzzles, so it must not be shared between threads.
+ *
+ * @author Jon
+ *
+ */
+public final class PuzzleGenerator
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private final GameConfig config;
+	private final RandomGenerator rand;
+
+	/*
+	 * All the hole values, in whatever order the last shuffle left them. The shuffle doesn't care
+	 * what order it starts from, so this is never reset.
+	 */
+	private final int[] palette;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param config puzzle configuration
+	 * @param rand random number generator
+	 */
+	public PuzzleGenerator (GameConfig config, RandomGenerator rand)
+	{
+		this.config = config;
+		this.rand = rand;
+
+		palette = new int[config.getNumValues()];
+		for (int i = 0; i < palette.length; i++)
+		{
+			palette[i] = i + 1;
+		}
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Generates a random puzzle.
+	 *
+	 * @return packed puzzle code
+	 */
+	public int next ()
+	{
+		int numHoles = config.getNumHoles();
+		int numValues = palette.length;
+		int puzzle = 0;
+
+		if (config.getDupsAllowed() == true)
+		{
+			for (int hole = 0; hole < numHoles; hole++)
+			{
+				puzzle = CodeScorer.setHoleValue(puzzle, hole, rand.nextInt(numValues) + 1);
+			}
+		}
+		else
+		{
+
+			/*
+			 * Swap a random value from the rest of the palette into the next position, and use it
+			 * for the next hole.
+			 */
+			for (int hole = 0; hole < numHoles; hole++)
+			{
+				int other = hole + rand.nextInt(numValues - hole);
+				int value = palette[other];
+				palette[other] = palette[hole];
+				palette[hole] = value;
+
+				puzzle = CodeScorer.setHoleValue(puzzle, hole, value);
+			}
+		}
+
+		return puzzle;
+	}
+
+	/**
+	 * Generates a number of random puzzles. The puzzles are generated as the
+	 * stream is consumed, and the stream must be consumed sequentially.
+	 *
+	 * @param count number of puzzles
+	 * @return stream of packed puzzle codes
+	 */
+	public IntStream generate (long count)
+	{
+		return IntStream.generate(this::next).limit(count);
+	}
+}
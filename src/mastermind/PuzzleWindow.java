@@ -1,21 +1,18 @@
 package mastermind;
 
-import java.awt.Font;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.file.Paths;
-import java.util.Iterator;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
 
 import org.apache.pivot.beans.BXML;
-import org.apache.pivot.beans.BXMLSerializer;
 import org.apache.pivot.collections.ArrayList;
 import org.apache.pivot.collections.HashMap;
 import org.apache.pivot.collections.List;
 import org.apache.pivot.collections.Map;
 import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.util.concurrent.Task;
 import org.apache.pivot.util.concurrent.TaskExecutionException;
+import org.apache.pivot.util.concurrent.TaskListener;
 import org.apache.pivot.wtk.ApplicationContext;
 import org.apache.pivot.wtk.BoxPane;
 import org.apache.pivot.wtk.Button;
@@ -35,6 +32,7 @@ import org.apache.pivot.wtk.PushButton;
 import org.apache.pivot.wtk.TablePane;
 import org.apache.pivot.wtk.Visual;
 import org.apache.pivot.wtk.Window;
+import org.apache.pivot.wtk.WindowStateListener;
 import org.apache.pivot.wtk.media.Image;
 
 /**
@@ -50,30 +48,51 @@ public class PuzzleWindow
 	
     private Window puzzleWindow = null;
 	private PushButton guessButton = null;
+	private PushButton hintButton = null;
 	private PushButton quitButton = null;
 	private Label messageLabel = null;
 	
-	Map<String, Integer> pegBackgroundGray;
-	Map<String, Integer> pegBackgroundBlue;
-	Map<String, Integer> pegBackgroundRed;
-	
-    private List<Integer> puzzle = null;
+    private GameSession session = null;
+    private SplittableRandom rand = null;
+    private PegImages pegImages = null;
+    private Solver solver = null;
+    private HintTask hintTask = null;
+    private PuzzleBoard board = null;
+    private RenderBatch renderBatch = null;
+    private List<PushButton> puzzleButtons = null;
     private List<List<PushButton>> guessButtons = null;
     private List<List<PushButton>> clueButtons = null;
-    private int guessRowIndex;
     
     private int numColors;
     private int numHoles;
     private int numGuesses;
-    private boolean dupsAllowed;
     private boolean blanksAllowed;
     
     private int numColorButtons;
     
     /*
-     * Puzzle attributes.
+     * When the puzzle window was opened, for the player's solve time.
+     */
+    private long startNanos;
+    
+    /*
+     * Styles for peg background colors. These never change, so they're shared by all puzzle windows.
+     */
+    private static final Map<String, Integer> pegBackgroundGray = createBackgroundStyle(10);
+    private static final Map<String, Integer> pegBackgroundBlue = createBackgroundStyle(17);
+    private static final Map<String, Integer> pegBackgroundRed = createBackgroundStyle(22);
+    
+    /*
+     * Drag source for the palette of color buttons, and drop target for the guess buttons.
+     */
+    private static final DragSource imageDragSource = new ImageDragSource();
+    private static final DropTarget imageDropTarget = new ImageDropTarget();
+    
+    /*
+     * Puzzle attributes. This has package access so the puzzle board can clear the attributes when
+     * it's reused.
      */
-    private static enum PuzzleAttributes
+    static enum PuzzleAttributes
     {
     	
     	/*
@@ -119,61 +138,43 @@ public class PuzzleWindow
 	{
 		
 		/*
-		 * Get the game options singleton object.
+		 * Start a new game from the game options singleton object. This generates a new puzzle.
 		 */
-		Options options = Options.getInstance();
+		PuzzleGenerationEvent generationEvent = new PuzzleGenerationEvent();
+		generationEvent.begin();
 		
-		/*
-		 * Get the game options.
-		 */
-		numColors = options.getNumColors();
-		numHoles = options.getNumHoles();
-		numGuesses = options.getNumGuesses();
-		dupsAllowed = options.getDupsAllowed();
-		blanksAllowed = options.getBlanksAllowed();
-
-        numColorButtons = numColors + ((blanksAllowed == true) ? 1 : 0);
-
-		/*
-		 * Initialize the rows of guess buttons.
-		 */
-		guessButtons = new ArrayList<List<PushButton>>(numGuesses);
-		for (int i = 0; i < numGuesses; i++)
-		{
-			List<PushButton> guessRow = new ArrayList<PushButton>();
-			guessButtons.add(guessRow);
-		}
-
-		/*
-		 * Initialize the rows of clue buttons.
-		 */
-		clueButtons = new ArrayList<List<PushButton>>(numGuesses);
-		for (int i = 0; i < numGuesses; i++)
+		rand = new SplittableRandom();
+		session = GameSession.fromOptions(Options.getInstance(), rand);
+		
+		if (generationEvent.shouldCommit() == true)
 		{
-			List<PushButton> guessRow = new ArrayList<PushButton>();
-			clueButtons.add(guessRow);
+			generationEvent.config = session.getConfig().getName();
+			generationEvent.numGuesses = session.getNumGuesses();
+			generationEvent.commit();
 		}
 		
 		/*
-		 * Initialize the guess row index. This gets incremented before the puzzle window is displayed,
-		 * so it starts at -1.
-		 */
-		guessRowIndex = -1;
-		
-		/*
-		 * Create styles for peg background colors.
+		 * Get the peg images. They're normally loaded in the background while the main window is
+		 * up, so there's no image loading here.
 		 */
-		pegBackgroundGray = new HashMap<String, Integer>();
-		pegBackgroundGray.put("backgroundColor", 10);
-		pegBackgroundBlue = new HashMap<String, Integer>();
-		pegBackgroundBlue.put("backgroundColor", 17);
-		pegBackgroundRed = new HashMap<String, Integer>();
-		pegBackgroundRed.put("backgroundColor", 22);
+		pegImages = PegImages.getInstance();
 		
 		/*
-		 * Generate a new puzzle.
+		 * Get the game options the view needs.
 		 */
-		generatePuzzle();
+		GameConfig config = session.getConfig();
+		numColors = config.getNumColors();
+		numHoles = config.getNumHoles();
+		numGuesses = session.getNumGuesses();
+		blanksAllowed = config.getBlanksAllowed();
+
+        numColorButtons = numColors + ((blanksAllowed == true) ? 1 : 0);
+        
+        /*
+         * Changes to the board during a turn are collected here, and made together at the end of
+         * the turn.
+         */
+        renderBatch = new RenderBatch();
 	}
 
     //---------------- Public methods --------------------------------------
@@ -189,6 +190,8 @@ public class PuzzleWindow
     public void displayPuzzle (Display display) 
     		throws IOException, SerializationException
     {
+    	WindowOpenEvent openEvent = new WindowOpenEvent();
+    	openEvent.begin();
     	
     	/*
     	 * Get the BXML information for the query playlists window.
@@ -205,83 +208,6 @@ public class PuzzleWindow
 			columns.insert(new TablePane.Column(), 0);
 		}
 
-		/*
-		 * Define a drag source for the palette of color buttons that the user drags to the guess rows.
-		 */
-        DragSource imageDragSource = new DragSource()
-        {
-            private Image image = null;
-            private Point offset = null;
-            private LocalManifest content = null;
-            private Integer colorAttribute = null;
-
-            /*
-             * Called when the user starts to drag a color button. We grab information about the button
-             * being dragged, which is later used when it's dropped.
-             */
-            @Override
-            public boolean beginDrag(Component comp, int x, int y)
-            {
-            	PushButton colorButton = (PushButton)comp;
-                this.image = (Image) colorButton.getButtonData();
-                this.colorAttribute = (Integer) colorButton.getAttribute(PuzzleAttributes.COLOR_VALUE);
-
-                if (this.image != null)
-                {
-                    this.content = new LocalManifest();
-                    this.content.putImage(this.image);
-                    this.content.putValue(PuzzleAttributes.COLOR_VALUE.toString(), this.colorAttribute);
-                    this.offset = new Point(
-                    		x - (colorButton.getWidth()  - this.image.getWidth())  / 2,
-                    		y - (colorButton.getHeight() - this.image.getHeight()) / 2);
-                }
-
-                return (this.image != null);
-            }
-
-            @Override
-            public void endDrag(Component comp, DropAction dropAction)
-            {
-                this.image = null;
-                this.offset = null;
-                this.content = null;
-                this.colorAttribute = null;
-            }
-
-            @Override
-            public boolean isNative()
-            {
-                return false;
-            }
-
-            @Override
-            public LocalManifest getContent()
-            {
-                return this.content;
-            }
-
-            @Override
-            public Visual getRepresentation()
-            {
-                return this.image;
-            }
-
-            @Override
-            public Point getOffset()
-            {
-                return this.offset;
-            }
-
-            /*
-             * We only support a copy operation for the drag and drop.
-             */
-            @Override
-            public int getSupportedDropActions()
-            {
-                return DropAction.COPY.getMask();
-            }
-        };
-		
 		/*
 		 * Create the palette of color buttons.
 		 */
@@ -311,6 +237,14 @@ public class PuzzleWindow
                 public boolean mouseClick(Component component, Mouse.Button button, int x, int y, int count)
                 {
                 	
+                	/*
+                	 * Ignore clicks once the game is over.
+                	 */
+                	if (session.isOver() == true)
+                	{
+                		return false;
+                	}
+                	
                 	/*
                 	 * Get the image and color value attribute for the clicked button.
                 	 */
@@ -324,7 +258,7 @@ public class PuzzleWindow
                 	 * That button is the first one in the guess row that has not been set.
                 	 * Set its data from the color button that was clicked.
                 	 */
-                    List<PushButton> guessRow = guessButtons.get(guessRowIndex);
+                    List<PushButton> guessRow = guessButtons.get(session.getGuessCount());
             		for (int i = 0; i < numHoles; i++)
             		{
             			PushButton guessButton = guessRow.get(i);
@@ -360,6 +294,10 @@ public class PuzzleWindow
         guessButton.setStyles(styles);
         buttonsBoxPane.add(guessButton);
         
+        hintButton = new PushButton();
+        hintButton.setStyles(styles);
+        buttonsBoxPane.add(hintButton);
+        
         quitButton = new PushButton();
         quitButton.setStyles(styles);
         buttonsBoxPane.add(quitButton);
@@ -374,34 +312,77 @@ public class PuzzleWindow
             {
             	
             	/*
-            	 * Initialize the puzzle guess array.
+            	 * Ignore the guess button once the game is over.
+            	 */
+            	if (session.isOver() == true)
+            	{
+            		return;
+            	}
+            	
+            	/*
+            	 * A hint for this row is no use once the guess is made.
             	 */
-            	List<Integer> guess = new ArrayList<Integer>(numHoles);
+            	cancelHint();
             	
             	/*
             	 * Get the current guess row.
             	 */
+            	int guessRowIndex = session.getGuessCount();
             	List<PushButton> guessRow = guessButtons.get(guessRowIndex);
             	
             	/*
-            	 * Gather the guess integer values.
+            	 * In diag mode, an empty guess row means the solver should make this guess.
+            	 */
+            	if (MainWindow.getDiagMode() == true && isGuessRowEmpty(guessRow) == true)
+            	{
+            		fillGuessRowFromSolver(guessRow);
+            	}
+            	
+            	/*
+            	 * Gather the guess integer values into a packed code. A hole the user has not filled
+            	 * in is left as 0, which never matches the puzzle.
             	 */
-        		Iterator<PushButton> guessRowIter = guessRow.iterator();
-        		while (guessRowIter.hasNext())
+            	int guess = 0;
+        		for (int i = 0; i < numHoles; i++)
         		{
-                	PushButton guessButton = guessRowIter.next();
-                	guess.add((Integer)guessButton.getAttribute(PuzzleAttributes.COLOR_VALUE));
+                	Integer colorValue = 
+                			(Integer) guessRow.get(i).getAttribute(PuzzleAttributes.COLOR_VALUE);
+                	if (colorValue != null)
+                	{
+                		guess = CodeScorer.setHoleValue(guess, i, colorValue);
+                	}
             	}
         		
         		/*
-        		 * Evaluate the guess. We get back 2 integers:
+        		 * Submit the guess to the game. We get back a packed score containing:
         		 * 
         		 * - the number of black clues
         		 * - the number of white clues
         		 */
-            	List<Integer> result = evaluateGuess(guess);
-            	Integer numBlack = result.get(0);
-            	Integer numWhite = result.get(1);
+            	GuessSubmissionEvent guessEvent = new GuessSubmissionEvent();
+            	guessEvent.begin();
+            	
+            	int result = session.submitGuess(guess);
+            	int numBlack = CodeScorer.getNumBlack(result);
+            	int numWhite = CodeScorer.getNumWhite(result);
+            	
+            	if (guessEvent.shouldCommit() == true)
+            	{
+            		guessEvent.guessNumber = session.getGuessCount();
+            		guessEvent.guess = guess;
+            		guessEvent.numBlack = numBlack;
+            		guessEvent.numWhite = numWhite;
+            		guessEvent.state = session.getState().toString();
+            		guessEvent.commit();
+            	}
+            	
+            	/*
+            	 * In diag mode, show how many codes are still consistent with the clues.
+            	 */
+            	if (MainWindow.getDiagMode() == true)
+            	{
+            		actionLabel.setText("Candidates remaining: " + session.getCandidates().getCount());
+            	}
 
         		/*
         		 * Create an array of indices to match all the clue pegs.
@@ -415,11 +396,16 @@ public class PuzzleWindow
             	/*
             	 * All black means the user wins.
             	 */
-            	if (numBlack == numHoles)
+            	if (session.getState() == GameSession.State.WON)
             	{
-            		placeClues(numBlack, "black-clue.png", indices);
+            		placeClues(guessRowIndex, numBlack, PegImages.Clue.BLACK, indices);
             		uncoverPuzzle();
-            		messageLabel.setText("     You win!");
+            		renderBatch.setText(messageLabel, "     You win!");
+            		
+            		/*
+            		 * Add the win to the player's statistics.
+            		 */
+            		StatsStore.getDefault().recordGame(session, getSolveMillis());
             	}
             	else
             	{
@@ -427,25 +413,30 @@ public class PuzzleWindow
             		/*
             		 * Randomly place all the black clue pegs.
             		 */
-            		indices = placeClues(numBlack, "black-clue.png", indices);
+            		indices = placeClues(guessRowIndex, numBlack, PegImages.Clue.BLACK, indices);
 
             		/*
             		 * Randomly place all the white clue pegs.
             		 */
-            		placeClues(numWhite, "white-clue.png", indices);
+            		placeClues(guessRowIndex, numWhite, PegImages.Clue.WHITE, indices);
             		
             		/*
-            		 * Increment the guess row.
+            		 * Move on to the next guess row.
             		 */
-            		incrementGuessRow();
+            		advanceGuessRow();
             		
             		/*
             		 * If we ran out of rows, the user loses.
             		 */
-            		if (guessRowIndex >= numGuesses)
+            		if (session.getState() == GameSession.State.LOST)
             		{
                 		uncoverPuzzle();
-                		messageLabel.setText("     You lose!");
+                		renderBatch.setText(messageLabel, "     You lose!");
+                		
+                		/*
+                		 * Add the loss to the player's statistics.
+                		 */
+                		StatsStore.getDefault().recordGame(session, getSolveMillis());
             		}
             		
             		/*
@@ -455,12 +446,41 @@ public class PuzzleWindow
             		{
             			setDropTarget();
             		}
-            		
-            		/*
-            		 * Repaint the window.
-            		 */
-            		puzzleWindow.repaint();
             	}
+            	
+            	/*
+            	 * Make all the changes for this turn, repainting only the pegs and labels that changed.
+            	 */
+            	commitTurn();
+            	
+            	/*
+            	 * Keep a record of the finished game. It's written in the background.
+            	 */
+            	if (session.isOver() == true)
+            	{
+            		GameLog.getDefault().append(session);
+            	}
+            }
+        });
+
+        /*
+         * Listener to handle the hint button (pressed when the user wants a suggested next guess).
+         */
+        hintButton.getButtonPressListeners().add(new ButtonPressListener()
+        {
+            @Override
+            public void buttonPressed(Button button)
+            {
+            	
+            	/*
+            	 * Ignore the hint button once the game is over, or while a hint is being worked out.
+            	 */
+            	if (session.isOver() == true || hintTask != null)
+            	{
+            		return;
+            	}
+            	
+            	startHint();
             }
         });
 
@@ -472,6 +492,7 @@ public class PuzzleWindow
             @Override
             public void buttonPressed(Button button)
             {
+            	cancelHint();
             	puzzleWindow.close();
             }
         	
@@ -481,6 +502,7 @@ public class PuzzleWindow
 		 * Flesh out the widgets.
 		 */
 		guessButton.setButtonData("Guess");
+		hintButton.setButtonData("Hint");
 		quitButton.setButtonData("Quit");
 		actionLabel.setText("Click color buttons, or drag them onto the current row.");
 		
@@ -490,164 +512,107 @@ public class PuzzleWindow
 		puzzleWindow.setTitle("Puzzle Me This");
 
 		/*
-		 * Create the puzzle row.
+		 * Create the solver used for hints and diag mode.
 		 */
-		TablePane.Row newRow = createPuzzleRow();
-		puzzleTablePane.getRows().add(newRow);
+		solver = new BookSolver(new EntropySolver());
+
+		/*
+		 * Get a board from the pool, show this game's puzzle on it, and add its rows to the window.
+		 */
+		acquireBoard();
+		showPuzzleRow();
+		board.attach(puzzleTablePane);
 		
 		/*
-		 * Create the rows for user guesses.
+		 * Give the board back to the pool when the window closes, so the next game can reuse it.
 		 */
-		for (int i = 0; i < numGuesses; i++)
+		puzzleWindow.getWindowStateListeners().add(new WindowStateListener.Adapter()
 		{
-			newRow = createGuessRow(i);
-			puzzleTablePane.getRows().add(newRow);
-		}
+			@Override
+			public void windowClosed (Window window, Display display, Window owner)
+			{
+				WindowCloseEvent closeEvent = new WindowCloseEvent();
+				if (closeEvent.shouldCommit() == true)
+				{
+					closeEvent.window = window.getTitle();
+					closeEvent.commit();
+				}
+				
+				cancelHint();
+				PuzzleBoard.release(board);
+				
+				/*
+				 * A finished game is already in the game log. Keep a game the user gave up on too,
+				 * unless it was never started.
+				 */
+				if (session.isOver() == false && session.getGuessCount() > 0)
+				{
+					GameLog.getDefault().append(session);
+				}
+			}
+		});
 		
 		/*
-		 * Initialize the guess row to the first row. This gets updated as the user plays the game.
+		 * Highlight the first guess row. This gets updated as the user plays the game.
 		 */
-		incrementGuessRow();
+		advanceGuessRow();
 		
 		/*
 		 * Set the drop target on the current row of guess buttons.
 		 */
 		setDropTarget();
+		commitTurn();
 
 		/*
-		 * Open the puzzle window.
+		 * Open the puzzle window. The player's solve time starts now.
 		 */
     	puzzleWindow.open(display);
+    	startNanos = System.nanoTime();
+    	
+    	if (openEvent.shouldCommit() == true)
+    	{
+    		openEvent.window = puzzleWindow.getTitle();
+    		openEvent.commit();
+    	}
     }
 
     //---------------- Private methods -------------------------------------
     
     /*
-     * Generate a new puzzle to be solved. The puzzle consists of an array of integer values that
-     * are mapped to colored pegs for display purposes.
+     * NOTE: Methods in this section without the private modifier have package access only so the
+     * benchmarks can reach them.
      */
-    private void generatePuzzle ()
-    {
-		
-    	/*
-    	 * If duplicates are not allowed, we need to create a puzzle with each peg representing a 
-    	 * unique color. So create an array of allowed colors and pass it to the puzzle values
-    	 * generator.
-    	 */
-		if (dupsAllowed == false)
-		{
-			List<Integer> uniqueColors = new ArrayList<Integer>(numColorButtons);
-			for (Options.Colors color : Options.Colors.values())
-			{
-				int colorValue = color.getColorValue();
-				uniqueColors.add(colorValue);
-			}
-			puzzle = generatePuzzleValues(uniqueColors);
-		}
-		
-		/*
-		 * Duplicates are allowed, so we don't need the allowed colors array.
-		 */
-		else
-		{
-			puzzle = generatePuzzleValues(null);
-		}
-    }
     
     /*
-     * Generate the array of puzzle integer values.
+     * Get a puzzle board for this game, reusing the last one if it's the right size.
      */
-    private List<Integer> generatePuzzleValues (List<Integer> uniqueColors)
-    {
-		
-		/*
-		 * Initialize the pseudo random number generator.
-		 */
-		Random rand = new Random();
-		
-		/*
-		 * Create the integer array.
-		 */
-    	List<Integer> puzzleValues = new ArrayList<Integer>(numHoles);
+	void acquireBoard ()
+	{
+		board = PuzzleBoard.acquire(numHoles, numGuesses, pegImages);
 		
-    	/*
-    	 * Fill each value of the integer array.
-    	 */
-		for (int i = 0; i < numHoles; i++)
-		{
-			
-			/*
-			 * We need to use unique colors for each puzzle value.
-			 */
-			if (uniqueColors != null)
-			{
-				
-				/*
-				 * Loop until we find a good value to add.
-				 */
-				boolean valueAdded = false;
-				while (valueAdded == false)
-				{
-
-					/*
-					 * Try to use a random color value.
-					 */
-					int color = rand.nextInt(numColorButtons) + 1;
-					
-					/*
-					 * If the randomly selected color has already been used, try again.
-					 */
-					if (uniqueColors.indexOf(color) == -1)
-					{
-						continue;
-					}
-					
-					/*
-					 * Add the randomly selected color, and remove it from the available choices
-					 * for the next round.
-					 */
-					uniqueColors.remove(color);
-					puzzleValues.add(color);
-					valueAdded = true;
-				}
-			}
-			
-			/*
-			 * Duplicate colors are allowed, so just add a randomly selected color.
-			 */
-			else
-			{
-				int color = rand.nextInt(numColorButtons) + 1;
-				puzzleValues.add(color);
-			}
-		}
-    	
-    	return puzzleValues;
-    }
-	
+		puzzleButtons = board.getPuzzleButtons();
+		messageLabel = board.getMessageLabel();
+		guessButtons = board.getGuessButtons();
+		clueButtons = board.getClueButtons();
+	}
+    
     /*
-     * Create the puzzle row for display.
+     * Show the puzzle row for this game.
      */
-	private TablePane.Row createPuzzleRow () 
+	private void showPuzzleRow () 
 	{
-
-		/*
-		 * Create a new puzzle table row, consisting of an array of pushbuttons that use colored 
-		 * peg icons.
-		 */
-    	TablePane.Row newRow = new TablePane.Row();
     	
     	/*
     	 * Walk through all the puzzle values.
     	 */
-    	Iterator<Integer> puzzleIter = puzzle.iterator();
-    	while (puzzleIter.hasNext())
+    	int puzzle = session.getPuzzle();
+    	for (int i = 0; i < numHoles; i++)
     	{
     		
     		/* 
     		 * Get the image for the selected puzzle value.
     		 */
-    		Integer puzzleValue = puzzleIter.next();
+    		int puzzleValue = CodeScorer.getHoleValue(puzzle, i);
 
     		/*
     		 * If diag mode is active, then display the real puzzle. Otherwise cover it up.
@@ -659,106 +624,16 @@ public class PuzzleWindow
     		}
     		else
     		{
-                image = getIconImage("x-button.png");
+                image = pegImages.getMarker(PegImages.Marker.HIDDEN);
     		}
 
             /*
-             * Add the button to represent this peg.
+             * Update the button that represents this peg.
              */
-        	PushButton button = new PushButton();
+        	PushButton button = puzzleButtons.get(i);
         	button.setStyles(pegBackgroundRed);
-        	
-        	button.setButtonData(image);
-        	newRow.add(button);
-    	}
-    	
-    	/*
-    	 * Create a label to display the win/lose message. First, create a font.
-    	 */
-    	Font font = new Font(Font.SANS_SERIF, Font.BOLD, 24);
-    	
-    	/*
-    	 * Create a styles object for the label.
-    	 */
-    	Map<String, Object> styles = new HashMap<String, Object>();
-    	styles.put("font", font);
-    	styles.put("color", 22);
-    	
-    	/*
-    	 * Create the label and set the styles. The text is set when the game is over.
-    	 */
-    	messageLabel = new Label();
-    	messageLabel.setStyles(styles);
-    	
-    	newRow.add(messageLabel);
-    	
-    	return newRow;
-	}
-	
-	/*
-	 * Create a user guess row for display.
-	 */
-	private TablePane.Row createGuessRow (int rowIndex)
-	{
-
-		/*
-		 * Create a new guess table row, consisting of an array of pushbuttons that will use colored 
-		 * peg icons to represent the user's choices, but are initially placeholders (gray pegs).
-		 */
-    	TablePane.Row newRow = new TablePane.Row();
-		
-		/* 
-		 * Get the image URL for the gray peg icon.
-		 */
-        Image image = getIconImage("gray-button.png");
-		
-        /*
-         * Create the row of guess buttons that the user will fill in.
-         */
-        List<PushButton> guessRow = guessButtons.get(rowIndex);
-		for (int i = 0; i < numHoles; i++)
-		{
-			PushButton button = new PushButton();
-			guessRow.add(button);
-			
         	button.setButtonData(image);
-        	
-        	newRow.add(button);
     	}
-    	
-    	/*
-    	 * Create a styles object for padding the clue box.
-    	 */
-    	Map<String, Object> styles = new HashMap<String, Object>();
-    	styles.put("padding", 5);
-    	
-    	/*
-    	 * Create the clue area.
-    	 */
-    	BoxPane clueBox = new BoxPane();
-    	clueBox.setStyles(styles);
-		
-		/* 
-		 * Get the image URL for the gray "x" clue icon.
-		 */
-        image = getIconImage("x-clue.png");
-		
-        /*
-         * Create the row of clue buttons.
-         */
-        List<PushButton> clueRow = clueButtons.get(rowIndex);
-    	for (int i = 0; i < numHoles; i++)
-    	{
-    		PushButton button = new PushButton();
-    		clueRow.add(button);
-    		
-    		button.setButtonData(image);
-    		clueBox.add(button);
-    	}
-    	
-    	newRow.add(clueBox);
-    	
-    	return newRow;
 	}
 	
 	/*
@@ -767,18 +642,13 @@ public class PuzzleWindow
 	private void uncoverPuzzle ()
 	{
 		
-		/*
-		 * Access the puzzle row.
-		 */
-		TablePane.RowSequence rows = puzzleTablePane.getRows();
-		TablePane.Row puzzleRow = rows.get(0);
-    	
     	/*
     	 * Walk through all the puzzle values.
     	 */
+    	int puzzle = session.getPuzzle();
     	for (int i = 0; i < numHoles; i++)
     	{
-    		Integer puzzleValue = puzzle.get(i);
+    		int puzzleValue = CodeScorer.getHoleValue(puzzle, i);
     		
     		/* 
     		 * Get the image for the selected puzzle value.
@@ -788,9 +658,9 @@ public class PuzzleWindow
             /*
              * Update the button with the appropriate color and background.
              */
-        	PushButton button = (PushButton) puzzleRow.get(i);
-        	button.setButtonData(image);
-        	button.setStyles(pegBackgroundGray);
+        	PushButton button = puzzleButtons.get(i);
+        	renderBatch.setButtonData(button, image);
+        	renderBatch.setStyles(button, pegBackgroundGray);
     	}
 	}
 	
@@ -801,78 +671,9 @@ public class PuzzleWindow
 	{
 
         /*
-         * Define a drop target.
+         * Set the shared drop target for all buttons on the current guess row.
          */
-        DropTarget imageDropTarget = new DropTarget()
-        {
-            @Override
-            public DropAction dragEnter(Component comp, Manifest dragContent,
-                int supportedDropActions, DropAction userDropAction)
-            {
-                DropAction dropAction = null;
-
-                if (dragContent.containsImage()
-                    && DropAction.COPY.isSelected(supportedDropActions))
-                {
-                    dropAction = DropAction.COPY;
-                }
-
-                return dropAction;
-            }
-
-            @Override
-            public void dragExit(Component comp)
-            {
-            }
-
-            @Override
-            public DropAction dragMove(Component comp, Manifest dragContent,
-                int supportedDropActions, int x, int y, DropAction userDropAction)
-            {
-                return (dragContent.containsImage() ? DropAction.COPY : null);
-            }
-
-            @Override
-            public DropAction userDropActionChange(Component comp, Manifest dragContent,
-                int supportedDropActions, int x, int y, DropAction userDropAction)
-            {
-                return (dragContent.containsImage() ? DropAction.COPY : null);
-            }
-
-            /*
-             * Called when the user releases the mouse button over a drop target. It sets the
-             * color and color attribute value from the dragged color button.
-             */
-            @Override
-            public DropAction drop(Component comp, Manifest dragContent,
-                int supportedDropActions, int x, int y, DropAction userDropAction)
-            {
-                DropAction dropAction = null;
-
-            	PushButton colorButton = (PushButton)comp;
-                if (dragContent.containsImage())
-                {
-                    try
-                    {
-                    	colorButton.setButtonData(dragContent.getImage());
-                    	colorButton.setAttribute(PuzzleAttributes.COLOR_VALUE, 
-                    			dragContent.getValue(PuzzleAttributes.COLOR_VALUE.toString()));
-                        dropAction = DropAction.COPY;
-                    }
-                    catch(IOException e)
-                    {
-                        throw new RuntimeException(e);
-                    }
-                }
-
-                return dropAction;
-            }
-        };
-        
-        /*
-         * Set the above drop target for all buttons on the current guess row.
-         */
-        List<PushButton> guessRow = guessButtons.get(guessRowIndex);
+        List<PushButton> guessRow = guessButtons.get(session.getGuessCount());
 		for (int i = 0; i < numHoles; i++)
 		{
 			PushButton button = guessRow.get(i);
@@ -881,36 +682,32 @@ public class PuzzleWindow
 	}
 	
 	/*
-	 * Increment the guess row. This involves setting the background color of the current and new
-	 * rows, and incrementing the guess row index.
+	 * Advance the highlighted guess row to match the game. This involves setting the background color
+	 * of the previous and new rows.
 	 */
-	private void incrementGuessRow ()
+	void advanceGuessRow ()
 	{
+		int guessRowIndex = session.getGuessCount();
 		
 		/*
-		 * Set the current guess row to gray background. Also remove the drop target, since we don't 
+		 * Set the previous guess row to gray background. Also remove the drop target, since we don't 
 		 * want to inadvertently change a previous clue. This is bypassed for the first row.
 		 */
 		List<PushButton> guessRow;
-		if (guessRowIndex >= 0)
+		if (guessRowIndex > 0)
 		{
-			guessRow = guessButtons.get(guessRowIndex);
+			guessRow = guessButtons.get(guessRowIndex - 1);
 			for (int i = 0; i < numHoles; i++)
 			{
 				PushButton button = guessRow.get(i);
-				button.setStyles(pegBackgroundGray);
+				renderBatch.setStyles(button, pegBackgroundGray);
 
 	        	button.setDropTarget(null);
 			}
 		}
 		
 		/*
-		 * Bump the guess row index to the next row.
-		 */
-		guessRowIndex++;
-		
-		/*
-		 * Set the new guess row to blue background. This is bypassed for the last row.
+		 * Set the new guess row to blue background. This is bypassed after the last row.
 		 */
 		if (guessRowIndex < numGuesses)
 		{
@@ -918,212 +715,212 @@ public class PuzzleWindow
 			for (int i = 0; i < numHoles; i++)
 			{
 				PushButton button = guessRow.get(i);
-				button.setStyles(pegBackgroundBlue);
+				renderBatch.setStyles(button, pegBackgroundBlue);
 			}
 		}
 	}
 	
 	/*
-	 * Get the colored peg image for a given color value.
+	 * Make all the board changes collected during this turn, and repaint just the components that
+	 * changed.
 	 */
-	private Image getPegImageForValue (int value)
+	void commitTurn ()
 	{
-		String icon = null;
-		switch (value)
+		long start = Metrics.TURN_REPAINT.start();
+		renderBatch.commit();
+		Metrics.TURN_REPAINT.stop(start);
+	}
+	
+	/*
+	 * Check if the user has not set any colors on a guess row.
+	 */
+	private boolean isGuessRowEmpty (List<PushButton> guessRow)
+	{
+		for (int i = 0; i < numHoles; i++)
 		{
-		case 1:
-			icon = "white-button.png";
-			break;
-
-		case 2:
-			icon = "black-button.png";
-			break;
-
-		case 3:
-			icon = "red-button.png";
-			break;
-
-		case 4:
-			icon = "green-button.png";
-			break;
-
-		case 5:
-			icon = "blue-button.png";
-			break;
-
-		case 6:
-			icon = "yellow-button.png";
-			break;
-
-		/*
-		 * Special case. If the number of colors is 6, a value of 7 means that blanks are allowed, so
-		 * we need a blank button. All other cases of number of colors and blanks allowed work out 
-		 * just fine.
-		 */
-		case 7:
-			if (numColors == Options.NumColors.SIX.getNumColorsValue())
-			{
-				icon = "blank-button.png";
-			}
-			else
+			if (guessRow.get(i).getAttribute(PuzzleAttributes.COLOR_VALUE) != null)
 			{
-				icon = "tan-button.png";
+				return false;
 			}
-			break;
+		}
+		
+		return true;
+	}
 
-		case 8:
-			icon = "pink-button.png";
-			break;
+	/*
+	 * Get the time the player has spent on this game, since the puzzle window was opened.
+	 */
+	private long getSolveMillis ()
+	{
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
 
-		case 9:
-			icon = "blank-button.png";
-			break;
-			
-		default:
-			throw new RuntimeException(
-					"Unexpected color value '" + value + "', [" + numColors + ", " + blanksAllowed + "]");
+	/*
+	 * Fill in a guess row with the guess the solver chooses. This is only used in diag mode, so the
+	 * solver runs right here on the event thread.
+	 */
+	private void fillGuessRowFromSolver (List<PushButton> guessRow)
+	{
+		SolverMoveEvent moveEvent = new SolverMoveEvent();
+		moveEvent.begin();
+		
+		int guess = solver.chooseGuess(session);
+		
+		if (moveEvent.shouldCommit() == true)
+		{
+			moveEvent.solver = solver.getClass().getSimpleName();
+			moveEvent.guessNumber = session.getGuessCount() + 1;
+			moveEvent.numCandidates = session.getCandidates().getCount();
+			moveEvent.guess = guess;
+			moveEvent.commit();
 		}
 		
-		/* 
-		 * Get the image for the selected colored peg icon.
-		 */
-        return getIconImage(icon);
+		fillGuessRow(guessRow, guess);
 	}
 	
 	/*
-	 * Get the colored peg image for a given image name.
+	 * Start working out a hint for the current guess row. The solver runs on a background task, on a
+	 * copy of the game, so the event thread stays free for dragging and dropping pegs.
 	 */
-	private Image getIconImage (String icon)
+	private void startHint ()
 	{
+		hintTask = new HintTask(solver, session.copy());
+		actionLabel.setText("Working out a hint...");
 		
-		/* 
-		 * Get the image URL for the input colored peg icon.
-		 */
-        URL imageURL;
-		try
+		hintTask.execute(new TaskListener<Integer>()
 		{
-			imageURL = Paths.get("src/mastermind/" + icon).toUri().toURL();
+			
+			/*
+			 * These are called on the task's thread, so post the result back to the event thread.
+			 */
+			@Override
+			public void taskExecuted (Task<Integer> task)
+			{
+				Integer guess = task.getResult();
+				ApplicationContext.queueCallback(() -> showHint(task, guess));
+			}
+
+			@Override
+			public void executeFailed (Task<Integer> task)
+			{
+				Throwable fault = task.getFault();
+				ApplicationContext.queueCallback(() -> hintFailed(task, fault));
+			}
+		});
+	}
+	
+	/*
+	 * Cancel the hint being worked out, if there is one.
+	 */
+	private void cancelHint ()
+	{
+		if (hintTask != null)
+		{
+			hintTask.abort();
+			hintTask = null;
 		}
-		catch (MalformedURLException e)
+	}
+	
+	/*
+	 * Show a finished hint on the current guess row. A hint from a task that has since been cancelled
+	 * is stale, so it's dropped.
+	 */
+	private void showHint (Task<Integer> task, int guess)
+	{
+		if (task != hintTask)
 		{
-            throw new RuntimeException(e);
+			return;
 		}
-
-        /*
-         *  If the image has not been added to the resource cache yet, add it.
-         */
-        Image image = (Image)ApplicationContext.getResourceCache().get(imageURL);
-
-        if (image == null)
-        {
-            try
-            {
-                image = Image.load(imageURL);
-            }
-            catch (TaskExecutionException e)
-            {
-                throw new RuntimeException(e);
-            }
-
-            ApplicationContext.getResourceCache().put(imageURL, image);
-        }
+		hintTask = null;
 		
-        return image;
+		fillGuessRow(guessButtons.get(session.getGuessCount()), guess);
+		actionLabel.setText("Here's a suggested guess.");
+		commitTurn();
 	}
 	
 	/*
-	 * Evaluate the uesr's guess. We return a list of two integers:
-	 * 
-	 * - the number of black clue pegs needed
-	 * - the number of white clue pegs needed
+	 * Report a hint that could not be worked out. Cancelled hints are ignored.
 	 */
-	private List<Integer> evaluateGuess (List<Integer> guess)
+	private void hintFailed (Task<Integer> task, Throwable fault)
 	{
-		List<Integer> result = new ArrayList<Integer>(2);
-		int numBlack = 0;
-		int numWhite = 0;
-		
-		/*
-		 * This is annoying, but Pivot's ArrayList does not support copy or clone, so we have to
-		 * copy the input guess and the puzzle arrays manually.
-		 * 
-		 * We need copies because we remove items from the arrays as we go along.
-		 */
-		List<Integer> workingPuzzle = new ArrayList<Integer>(numHoles);
-		Iterator<Integer> puzzleIter = puzzle.iterator();
-		while (puzzleIter.hasNext())
+		if (task != hintTask)
 		{
-			workingPuzzle.add(puzzleIter.next());
+			return;
 		}
-
-		List<Integer> workingGuess = new ArrayList<Integer>(numHoles);
-		Iterator<Integer> guessIter = guess.iterator();
-		while (guessIter.hasNext())
+		hintTask = null;
+		
+		if (fault instanceof TaskExecutionException && fault.getCause() instanceof CancellationException)
 		{
-			workingGuess.add(guessIter.next());
+			return;
 		}
 		
-		/*
-		 * Determine the number of black clue pegs needed by a simple comparison of each puzzle
-		 * position with the corresponding guess position. Remove any matches found from both
-		 * working arrays, because we don't want to also count such matches when we're looking for 
-		 * white clue pegs.
-		 */
+		actionLabel.setText("Unable to work out a hint: " + fault.getMessage());
+	}
+	
+	/*
+	 * Fill in a guess row with the pegs of a packed guess code.
+	 */
+	private void fillGuessRow (List<PushButton> guessRow, int guess)
+	{
 		for (int i = 0; i < numHoles; i++)
 		{
-			if (puzzle.get(i) == guess.get(i))
-			{
-				
-				/*
-				 * Tricky stuff alert: since we're removing items from the working arrays, we can't
-				 * just use i as an index, since it won't be correct after the first removal. So
-				 * use i minus the number of black matches previously found instead.
-				 */
-				workingGuess.remove(i - numBlack, 1);
-				workingPuzzle.remove(i - numBlack, 1);
-				numBlack++;
-			}
+			int colorValue = CodeScorer.getHoleValue(guess, i);
+			
+			PushButton button = guessRow.get(i);
+			renderBatch.setButtonData(button, getPegImageForValue(colorValue));
+			button.setAttribute(PuzzleAttributes.COLOR_VALUE, colorValue);
 		}
-
+	}
+	
+	/*
+	 * Get the colored peg image for a given color value.
+	 */
+	private Image getPegImageForValue (int value)
+	{
+		
 		/*
-		 * Determine the number of white clue pegs needed by checking each remaining guess position
-		 * against all remaining puzzle positions. Remove each match found from the puzzle, so we
-		 * don't count anything more than once.
+		 * The blank always comes right after the last color, so with 6 colors a value of 7 is the
+		 * blank, not tan. Otherwise the color value is the peg color.
 		 */
-		Iterator<Integer> workingGuessIter = workingGuess.iterator();
-		while (workingGuessIter.hasNext())
+		Options.Colors color = null;
+		if (blanksAllowed == true && value == numColors + 1)
 		{
-			int index;
-			if ((index = workingPuzzle.indexOf(workingGuessIter.next())) >= 0)
+			color = Options.Colors.BLANK;
+		}
+		else
+		{
+			for (Options.Colors candidate : Options.Colors.values())
 			{
-				numWhite++;
-				workingPuzzle.remove(index, 1);
+				if (candidate.getColorValue() == value)
+				{
+					color = candidate;
+					break;
+				}
 			}
 		}
 		
-		/*
-		 * Build the result list.
-		 */
-		result.add(numBlack);
-		result.add(numWhite);
-		return result;
+		if (color == null || (color == Options.Colors.BLANK && blanksAllowed == false))
+		{
+			throw new RuntimeException(
+					"Unexpected color value '" + value + "', [" + numColors + ", " + blanksAllowed + "]");
+		}
+		
+		return pegImages.getPeg(color);
 	}
 	
 	/*
 	 * Place black or white clue pegs randomly, based on the user's guess.
 	 */
-	private List<Integer> placeClues (Integer numClues, String imageName, List<Integer> indices)
+	List<Integer> placeClues (int guessRowIndex, int numClues, PegImages.Clue clue, List<Integer> indices)
 	{
-		
-		/*
-		 * Initialize the pseudo random number generator.
-		 */
-		Random rand = new Random();
+		long start = Metrics.CLUE_PLACEMENT.start();
+		CluePlacementEvent clueEvent = new CluePlacementEvent();
+		clueEvent.begin();
 		
 		/*
 		 * Get the appropriate clue button image.
 		 */
-        Image clueImage = getIconImage(imageName);
+        Image clueImage = pegImages.getClue(clue);
 		
 		/*
 		 * Randomly place the appropriate clues.
@@ -1153,13 +950,32 @@ public class PuzzleWindow
 			 * Update the selected clue button with the black or white clue peg.
 			 */
 			PushButton clueButton = clueRow.get(clueIndex);
-			clueButton.setButtonData(clueImage);
-			clueRow.update(clueIndex, clueButton);
+			renderBatch.setButtonData(clueButton, clueImage);
+		}
+		
+		Metrics.CLUE_PLACEMENT.stop(start);
+		if (clueEvent.shouldCommit() == true)
+		{
+			clueEvent.guessRow = guessRowIndex;
+			clueEvent.clue = clue.toString();
+			clueEvent.numClues = numClues;
+			clueEvent.commit();
 		}
 		
 		return indices;
 	}
     
+    /*
+     * Create a styles object for a peg background color.
+     */
+    private static Map<String, Integer> createBackgroundStyle (int backgroundColor)
+    {
+    	Map<String, Integer> styles = new HashMap<String, Integer>();
+    	styles.put("backgroundColor", backgroundColor);
+    	
+    	return styles;
+    }
+    
     /*
      * Initialize BXML variables.
      */
@@ -1167,15 +983,228 @@ public class PuzzleWindow
     		throws IOException, SerializationException
     {
 		
-        BXMLSerializer windowSerializer = new BXMLSerializer();
-        puzzleWindow = (Window)windowSerializer.
-        		readObject(getClass().getResource("puzzleWindow.bxml"));
+        long start = Metrics.WINDOW_LOAD.start();
+
+        WindowLoader.LoadedWindow loadedWindow = WindowLoader.take("puzzleWindow.bxml");
+        puzzleWindow = loadedWindow.getWindow();
 
         actionLabel = 
-        		(Label)windowSerializer.getNamespace().get("actionLabel");
+        		(Label)loadedWindow.get("actionLabel");
         buttonsBoxPane = 
-        		(BoxPane)windowSerializer.getNamespace().get("buttonsBoxPane");
+        		(BoxPane)loadedWindow.get("buttonsBoxPane");
 		puzzleTablePane = 
-        		(TablePane)windowSerializer.getNamespace().get("puzzleTablePane");
+        		(TablePane)loadedWindow.get("puzzleTablePane");
+
+        Metrics.WINDOW_LOAD.stop(start);
+    }
+
+    //---------------- Nested classes --------------------------------------
+    
+    /*
+     * Drag source for the palette of color buttons that the user drags to the guess rows. Only one
+     * drag can happen at a time, so all puzzle windows share one.
+     */
+    private static final class ImageDragSource implements DragSource
+    {
+        private Image image = null;
+        private Point offset = null;
+        private LocalManifest content = null;
+        private Integer colorAttribute = null;
+
+        /*
+         * Called when the user starts to drag a color button. We grab information about the button
+         * being dragged, which is later used when it's dropped.
+         */
+        @Override
+        public boolean beginDrag(Component comp, int x, int y)
+        {
+        	long start = Metrics.PEG_DRAG.start();
+        	
+        	PushButton colorButton = (PushButton)comp;
+            this.image = (Image) colorButton.getButtonData();
+            this.colorAttribute = (Integer) colorButton.getAttribute(PuzzleAttributes.COLOR_VALUE);
+
+            if (this.image != null)
+            {
+                this.content = new LocalManifest();
+                this.content.putImage(this.image);
+                this.content.putValue(PuzzleAttributes.COLOR_VALUE.toString(), this.colorAttribute);
+                this.offset = new Point(
+                		x - (colorButton.getWidth()  - this.image.getWidth())  / 2,
+                		y - (colorButton.getHeight() - this.image.getHeight()) / 2);
+            }
+
+            Metrics.PEG_DRAG.stop(start);
+            
+            return (this.image != null);
+        }
+
+        @Override
+        public void endDrag(Component comp, DropAction dropAction)
+        {
+            this.image = null;
+            this.offset = null;
+            this.content = null;
+            this.colorAttribute = null;
+        }
+
+        @Override
+        public boolean isNative()
+        {
+            return false;
+        }
+
+        @Override
+        public LocalManifest getContent()
+        {
+            return this.content;
+        }
+
+        @Override
+        public Visual getRepresentation()
+        {
+            return this.image;
+        }
+
+        @Override
+        public Point getOffset()
+        {
+            return this.offset;
+        }
+
+        /*
+         * We only support a copy operation for the drag and drop.
+         */
+        @Override
+        public int getSupportedDropActions()
+        {
+            return DropAction.COPY.getMask();
+        }
+    }
+    
+    /*
+     * Drop target for the current row of guess buttons. It keeps no state, so all puzzle windows
+     * share one.
+     */
+    private static final class ImageDropTarget implements DropTarget
+    {
+        @Override
+        public DropAction dragEnter(Component comp, Manifest dragContent,
+            int supportedDropActions, DropAction userDropAction)
+        {
+            DropAction dropAction = null;
+
+            if (dragContent.containsImage()
+                && DropAction.COPY.isSelected(supportedDropActions))
+            {
+                dropAction = DropAction.COPY;
+            }
+
+            return dropAction;
+        }
+
+        @Override
+        public void dragExit(Component comp)
+        {
+        }
+
+        @Override
+        public DropAction dragMove(Component comp, Manifest dragContent,
+            int supportedDropActions, int x, int y, DropAction userDropAction)
+        {
+            return (dragContent.containsImage() ? DropAction.COPY : null);
+        }
+
+        @Override
+        public DropAction userDropActionChange(Component comp, Manifest dragContent,
+            int supportedDropActions, int x, int y, DropAction userDropAction)
+        {
+            return (dragContent.containsImage() ? DropAction.COPY : null);
+        }
+
+        /*
+         * Called when the user releases the mouse button over a drop target. It sets the
+         * color and color attribute value from the dragged color button.
+         */
+        @Override
+        public DropAction drop(Component comp, Manifest dragContent,
+            int supportedDropActions, int x, int y, DropAction userDropAction)
+        {
+        	long start = Metrics.PEG_DROP.start();
+        	
+            DropAction dropAction = null;
+
+        	PushButton colorButton = (PushButton)comp;
+            if (dragContent.containsImage())
+            {
+                try
+                {
+                	colorButton.setButtonData(dragContent.getImage());
+                	colorButton.setAttribute(PuzzleAttributes.COLOR_VALUE, 
+                			dragContent.getValue(PuzzleAttributes.COLOR_VALUE.toString()));
+                    dropAction = DropAction.COPY;
+                }
+                catch(IOException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            Metrics.PEG_DROP.stop(start);
+            
+            return dropAction;
+        }
+    }
+    
+    /*
+     * Background task that works out a hint. It uses its own copy of the game, and passes the task's
+     * abort flag to the solver so an aborted hint stops searching.
+     */
+    private static final class HintTask extends Task<Integer>
+    {
+    	private final Solver solver;
+    	private final GameSession session;
+    	
+    	private HintTask (Solver solver, GameSession session)
+    	{
+    		this.solver = solver;
+    		this.session = session;
+    	}
+    	
+    	@Override
+    	public Integer execute ()
+    			throws TaskExecutionException
+    	{
+    		SolverMoveEvent moveEvent = new SolverMoveEvent();
+    		moveEvent.begin();
+    		
+    		try
+    		{
+    			int guess = solver.chooseGuess(session, () -> abort);
+    			moveEvent.guess = guess;
+    			
+    			return guess;
+    		}
+    		catch (CancellationException e)
+    		{
+    			moveEvent.aborted = true;
+    			throw new TaskExecutionException(e);
+    		}
+    		finally
+    		{
+    			
+    			/*
+    			 * The hint's copy of the game is only used on this thread, so its candidates can be
+    			 * counted here.
+    			 */
+    			if (moveEvent.shouldCommit() == true)
+    			{
+    				moveEvent.solver = solver.getClass().getSimpleName();
+    				moveEvent.guessNumber = session.getGuessCount() + 1;
+    				moveEvent.numCandidates = session.getCandidates().getCount();
+    				moveEvent.commit();
+    			}
+    		}
+    	}
     }
 }
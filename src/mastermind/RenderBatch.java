@@ -0,0 +1,160 @@
+package mastermind;
+
+import org.apache.pivot.collections.ArrayList;
+import org.apache.pivot.collections.List;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.wtk.Bounds;
+import org.apache.pivot.wtk.Button;
+import org.apache.pivot.wtk.Component;
+import org.apache.pivot.wtk.Container;
+import org.apache.pivot.wtk.Label;
+import org.apache.pivot.wtk.Point;
+
+/**
+ * Class that collects the changes made to the puzzle board during a turn,
+ * and applies them together.
+ * <p>
+ * Changes to button images, styles and label text are recorded, along with
+ * the components they touch, but not made until <code>commit</code>. Then
+ * they're all made at once, so Pivot lays the window out only once for the
+ * whole turn, and only the changed components are repainted, instead of the
+ * whole window.
+ * <p>
+ * Like all Pivot components, a batch must only be used on the event thread.
+ *
+ * @author Jon
+ *
+ */
+public final class RenderBatch
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private final List<Runnable> changes = new ArrayList<Runnable>();
+	private final List<Component> dirtyComponents = new ArrayList<Component>();
+
+	/**
+	 * Class constructor.
+	 */
+	public RenderBatch ()
+	{
+	}
+
+    //---------------- Getters and setters ---------------------------------
+
+	/**
+	 * Checks if there are changes waiting to be committed.
+	 *
+	 * @return true if there are no changes
+	 */
+	public boolean isEmpty ()
+	{
+		return changes.isEmpty();
+	}
+
+	/**
+	 * Gets the area covered by the changed components, in the coordinates of
+	 * an ancestor, usually the window. Components that aren't under the
+	 * ancestor are skipped.
+	 *
+	 * @param ancestor container the bounds are relative to
+	 * @return bounds of the changed components, or <code>null</code> if there
+	 * are none
+	 */
+	public Bounds getDirtyBounds (Container ancestor)
+	{
+		Bounds dirtyBounds = null;
+
+		for (Component component : dirtyComponents)
+		{
+			Point location = component.mapPointToAncestor(ancestor, 0, 0);
+			if (location == null)
+			{
+				continue;
+			}
+
+			Bounds bounds = new Bounds(location.x, location.y, component.getWidth(), component.getHeight());
+			dirtyBounds = (dirtyBounds == null) ? bounds : dirtyBounds.union(bounds);
+		}
+
+		return dirtyBounds;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Records a new image or text for a button.
+	 *
+	 * @param button button to change
+	 * @param buttonData new button data
+	 */
+	public void setButtonData (Button button, Object buttonData)
+	{
+		addChange(button, () -> button.setButtonData(buttonData));
+	}
+
+	/**
+	 * Records new styles for a component.
+	 *
+	 * @param component component to change
+	 * @param styles new styles
+	 */
+	public void setStyles (Component component, Map<String, ?> styles)
+	{
+		addChange(component, () -> component.setStyles(styles));
+	}
+
+	/**
+	 * Records new text for a label.
+	 *
+	 * @param label label to change
+	 * @param text new text
+	 */
+	public void setText (Label label, String text)
+	{
+		addChange(label, () -> label.setText(text));
+	}
+
+	/**
+	 * Makes all the recorded changes, in the order they were recorded, then
+	 * repaints just the changed components.
+	 */
+	public void commit ()
+	{
+		for (Runnable change : changes)
+		{
+			change.run();
+		}
+
+		for (Component component : dirtyComponents)
+		{
+			component.repaint();
+		}
+
+		clear();
+	}
+
+	/**
+	 * Throws away the recorded changes without making them.
+	 */
+	public void clear ()
+	{
+		changes.clear();
+		dirtyComponents.clear();
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Record a change, and the component it touches.
+	 */
+	private void addChange (Component component, Runnable change)
+	{
+		changes.add(change);
+
+		if (dirtyComponents.indexOf(component) == -1)
+		{
+			dirtyComponents.add(component);
+		}
+	}
+}
@@ -0,0 +1,864 @@
+package mastermind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Class that replays the games in a game log, verifies them, and works out
+ * how well they were played. See <code>GameAnalysis</code> for what's worked
+ * out for each game.
+ * <p>
+ * The replay is a pipeline of three stages, joined by bounded queues:
+ * <ol>
+ * <li>a reader thread streams the segments of the log in order, through a
+ * read only mapping of one segment at a time, and passes the records on in
+ * batches</li>
+ * <li>worker threads analyze the games in each batch, and total them up</li>
+ * <li>the calling thread merges the totals, and hands each game's analysis to
+ * the caller if it asked for them</li>
+ * </ol>
+ * Only a few batches are in flight at a time, so the log is never loaded into
+ * memory, however large it is.
+ * <p>
+ * Working out the information gained needs the set of codes still possible
+ * after each guess. The set after the first guess is the same for every game
+ * that opens with the same guess and score, so each worker keeps those sets
+ * and starts from a copy.
+ * <p>
+ * If a reference solver is given, the distance from it is worked out by
+ * having the solver play each distinct puzzle once. The results are shared by
+ * all workers.
+ * <p>
+ * Usage: <code>ReplayEngine [options]</code>, where the options are:
+ * <ul>
+ * <li><code>--log dir</code>: game log directory (default the game's log)</li>
+ * <li><code>--threads n</code>: number of worker threads (default all
+ * cores)</li>
+ * <li><code>--solver entropy|knuth|none</code>: reference solver
+ * (default none)</li>
+ * <li><code>--games file</code>: also write each game's analysis to a CSV
+ * file</li>
+ * </ul>
+ *
+ * @author Jon
+ *
+ */
+public final class ReplayEngine
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private static final int BATCH_SIZE = 1024;
+
+	/*
+	 * Batches waiting for each worker, and results waiting to be merged.
+	 */
+	private static final int BATCHES_PER_WORKER = 4;
+
+	/*
+	 * Most first guess candidate sets each worker keeps.
+	 */
+	private static final int MAX_OPENINGS = 1024;
+
+	/*
+	 * Most guesses the reference solver is given for a puzzle. It never needs anywhere near this.
+	 */
+	private static final int REFERENCE_GUESSES = 64;
+
+	/*
+	 * Marks the end of the records, and of a worker's results.
+	 */
+	private static final Batch END_OF_RECORDS = new Batch(-1, new GameRecord[0], 0, 0);
+	private static final Result END_OF_RESULTS = new Result(new Summary(), null);
+
+	private final Path directory;
+	private final int numWorkers;
+	private final Solver referenceSolver;
+
+	/*
+	 * Reference solver guess counts, by code index, for each configuration. Zero means not worked
+	 * out yet.
+	 */
+	private final ConcurrentHashMap<GameConfig, AtomicIntegerArray> referenceGuesses =
+			new ConcurrentHashMap<GameConfig, AtomicIntegerArray>();
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param directory game log directory
+	 * @param numWorkers number of worker threads
+	 * @param referenceSolver solver to measure the games against, or
+	 * <code>null</code> for none
+	 */
+	public ReplayEngine (Path directory, int numWorkers, Solver referenceSolver)
+	{
+		if (numWorkers < 1)
+		{
+			throw new IllegalArgumentException("Number of workers must be positive");
+		}
+
+		this.directory = directory;
+		this.numWorkers = numWorkers;
+		this.referenceSolver = referenceSolver;
+	}
+
+    /**
+     * Specifies the main replay entry point.
+     *
+     * @param args replay options
+     * @throws IOException If an error occurs trying to read the log or write
+     * the games file.
+     * @throws InterruptedException If the replay is interrupted.
+     */
+	public static void main (String[] args)
+			throws IOException, InterruptedException
+	{
+		Path directory = GameLog.getDefaultDirectory();
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		String referenceName = "none";
+		Path gamesFile = null;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			String value = args[i + 1];
+			switch (args[i])
+			{
+			case "--log":
+				directory = Paths.get(value);
+				break;
+
+			case "--threads":
+				numThreads = Integer.parseInt(value);
+				break;
+
+			case "--solver":
+				referenceName = value;
+				break;
+
+			case "--games":
+				gamesFile = Paths.get(value);
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown option '" + args[i] + "'");
+			}
+		}
+
+		if (args.length % 2 != 0)
+		{
+			throw new IllegalArgumentException("Missing value for option '" + args[args.length - 1] + "'");
+		}
+
+		Solver referenceSolver;
+		switch (referenceName)
+		{
+		case "knuth":
+			referenceSolver = new BookSolver(new KnuthSolver());
+			break;
+
+		case "entropy":
+			referenceSolver = new BookSolver(new EntropySolver());
+			break;
+
+		case "none":
+			referenceSolver = null;
+			break;
+
+		default:
+			throw new IllegalArgumentException("Unknown solver '" + referenceName + "'");
+		}
+
+		ReplayEngine engine = new ReplayEngine(directory, numThreads, referenceSolver);
+
+		/*
+		 * Replay the log, writing each game's analysis if a games file was given.
+		 */
+		long start = System.nanoTime();
+		Summary summary;
+		if (gamesFile != null)
+		{
+			try (BufferedWriter writer = Files.newBufferedWriter(gamesFile))
+			{
+				writer.write("sequence,config,state,guesses,recorded,mismatches,wasted,bits,reference");
+				writer.newLine();
+
+				summary = engine.run(analysis -> writeAnalysis(writer, analysis));
+			}
+		}
+		else
+		{
+			summary = engine.run(null);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		/*
+		 * Report the totals.
+		 */
+		double seconds = elapsed / 1e9;
+		System.out.printf("game log       %s%n", directory);
+		System.out.printf("games          %d (%d won, %d lost, %d unfinished)%n", summary.getNumGames(),
+				summary.getNumWon(), summary.getNumLost(),
+				summary.getNumGames() - summary.getNumWon() - summary.getNumLost());
+		System.out.printf("corrupt        %d records skipped%n", summary.getNumCorrupt());
+		System.out.printf("guesses        %d%n", summary.getNumGuesses());
+		System.out.printf("verified       %d games, %d mismatched scores%n",
+				summary.getNumGames() - summary.getNumUnverified(), summary.getNumMismatches());
+		System.out.printf("wasted         %d guesses (%.4f%%)%n", summary.getNumWasted(),
+				100.0 * summary.getNumWasted() / Math.max(1, summary.getNumGuesses()));
+		System.out.printf("information    %.4f bits per guess%n",
+				summary.getTotalBits() / Math.max(1, summary.getNumGuesses()));
+		if (referenceSolver != null)
+		{
+			System.out.printf("distance       %.4f guesses per game won, from %s%n",
+					(double) summary.getTotalDistance() / Math.max(1, summary.getNumWon()), referenceName);
+		}
+		System.out.printf("threads        %d%n", numThreads);
+		System.out.printf("elapsed        %.3f s%n", seconds);
+		System.out.printf("guesses/s      %.1f%n", summary.getNumGuesses() / seconds);
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Replays every game in the log.
+	 *
+	 * @param perGame given each game's analysis, on the calling thread, in no
+	 * particular order; <code>null</code> if the analyses aren't wanted
+	 * @return totals for all the games
+	 * @throws IOException If an error occurs trying to read the log.
+	 * @throws InterruptedException If the replay is interrupted.
+	 */
+	public Summary run (Consumer<GameAnalysis> perGame)
+			throws IOException, InterruptedException
+	{
+		List<Path> segments = GameLog.getSegments(directory);
+
+		BlockingQueue<Batch> batches = new ArrayBlockingQueue<Batch>(numWorkers * BATCHES_PER_WORKER);
+		BlockingQueue<Result> results = new ArrayBlockingQueue<Result>(numWorkers * BATCHES_PER_WORKER);
+
+		/*
+		 * Failures in the reader or a worker are kept here, and reported once the pipeline stops.
+		 */
+		List<Throwable> faults = new CopyOnWriteArrayList<Throwable>();
+
+		/*
+		 * Start the stages. The reader ends the records once for each worker, and each worker ends its
+		 * results once.
+		 */
+		List<Thread> threads = new ArrayList<Thread>();
+		threads.add(startThread("ReplayReader", () -> readSegments(segments, batches), faults, () ->
+		{
+			for (int i = 0; i < numWorkers; i++)
+			{
+				putQuietly(batches, END_OF_RECORDS);
+			}
+		}));
+
+		boolean keepAnalyses = perGame != null;
+		for (int i = 0; i < numWorkers; i++)
+		{
+			threads.add(startThread("ReplayWorker-" + i, () -> analyzeBatches(batches, results, keepAnalyses),
+					faults, () -> putQuietly(results, END_OF_RESULTS)));
+		}
+
+		/*
+		 * Merge the results as they arrive, until every worker has finished.
+		 */
+		Summary summary = new Summary();
+		try
+		{
+			int numFinished = 0;
+			while (numFinished < numWorkers)
+			{
+				Result result = results.take();
+				if (result == END_OF_RESULTS)
+				{
+					numFinished++;
+					continue;
+				}
+
+				summary.merge(result.summary);
+				if (perGame != null)
+				{
+					for (GameAnalysis analysis : result.analyses)
+					{
+						perGame.accept(analysis);
+					}
+				}
+			}
+		}
+		finally
+		{
+			for (Thread thread : threads)
+			{
+				thread.interrupt();
+			}
+		}
+
+		if (faults.isEmpty() == false)
+		{
+			Throwable fault = faults.get(0);
+			if (fault instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) fault).getCause();
+			}
+			throw new IllegalStateException("Replay failed", fault);
+		}
+
+		return summary;
+	}
+
+	/**
+	 * Analyzes one recorded game.
+	 *
+	 * @param sequence position of the record in the game log
+	 * @param record recorded game
+	 * @return analysis of the game
+	 */
+	public GameAnalysis analyze (long sequence, GameRecord record)
+	{
+		return new Worker().analyze(sequence, record);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Start a pipeline thread. Whatever happens, the thread passes on its end marker when it's done,
+	 * so the next stage always finishes.
+	 */
+	private static Thread startThread (String name, Stage stage, List<Throwable> faults, Runnable end)
+	{
+		Thread thread = new Thread(() ->
+		{
+			try
+			{
+				stage.run();
+			}
+			catch (InterruptedException | RuntimeException | Error e)
+			{
+				faults.add(e);
+			}
+			finally
+			{
+				end.run();
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+
+		return thread;
+	}
+
+	/*
+	 * Put an end marker on a queue, even if this thread has been interrupted.
+	 */
+	private static <T> void putQuietly (BlockingQueue<T> queue, T item)
+	{
+		boolean interrupted = Thread.interrupted();
+		while (true)
+		{
+			try
+			{
+				queue.put(item);
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+
+		if (interrupted == true)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Reader stage: stream the records of each segment, in order, in batches. Segments with a bad
+	 * header are skipped. Corrupt records are skipped too, but counted, and keep their place in the
+	 * sequence.
+	 */
+	private static void readSegments (List<Path> segments, BlockingQueue<Batch> batches)
+			throws InterruptedException
+	{
+		long sequence = 0;
+		GameRecord[] records = new GameRecord[BATCH_SIZE];
+		int numRecords = 0;
+		int numCorrupt = 0;
+
+		for (Path file : segments)
+		{
+			MappedByteBuffer segment = mapSegment(file);
+			if (segment == null || GameLog.isValidHeader(segment.duplicate()) == false)
+			{
+				continue;
+			}
+
+			for (int slot = 0; slot < GameLog.SEGMENT_RECORDS; slot++)
+			{
+				GameRecord record = GameRecord.read(segment, GameLog.HEADER_SIZE + slot * GameRecord.RECORD_SIZE);
+				if (record == null)
+				{
+					break;
+				}
+
+				/*
+				 * The records in a batch are numbered in a run, so the batch so far is passed on before
+				 * skipping a corrupt record.
+				 */
+				if (record == GameRecord.CORRUPT)
+				{
+					if (numRecords > 0)
+					{
+						batches.put(new Batch(sequence, records, numRecords, numCorrupt));
+						sequence += numRecords;
+						records = new GameRecord[BATCH_SIZE];
+						numRecords = 0;
+						numCorrupt = 0;
+					}
+
+					numCorrupt++;
+					sequence++;
+					continue;
+				}
+
+				records[numRecords++] = record;
+				if (numRecords == BATCH_SIZE)
+				{
+					batches.put(new Batch(sequence, records, numRecords, numCorrupt));
+					sequence += numRecords;
+					records = new GameRecord[BATCH_SIZE];
+					numRecords = 0;
+					numCorrupt = 0;
+				}
+			}
+		}
+
+		if (numRecords > 0 || numCorrupt > 0)
+		{
+			batches.put(new Batch(sequence, records, numRecords, numCorrupt));
+		}
+	}
+
+	/*
+	 * Map a whole segment for reading, or return null if it's too short to be a segment. The mapping
+	 * stays valid after the channel is closed.
+	 */
+	private static MappedByteBuffer mapSegment (Path file)
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if (channel.size() < GameLog.getSegmentSize())
+			{
+				return null;
+			}
+
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, GameLog.getSegmentSize());
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * Worker stage: analyze each batch, and pass on its totals, along with the analyses if they're
+	 * wanted.
+	 */
+	private void analyzeBatches (BlockingQueue<Batch> batches, BlockingQueue<Result> results,
+			boolean keepAnalyses)
+			throws InterruptedException
+	{
+		Worker worker = new Worker();
+
+		while (true)
+		{
+			Batch batch = batches.take();
+			if (batch == END_OF_RECORDS)
+			{
+				return;
+			}
+
+			Summary summary = new Summary();
+			summary.numCorrupt = batch.numCorrupt;
+			GameAnalysis[] analyses = (keepAnalyses == true) ? new GameAnalysis[batch.numRecords] : null;
+			for (int i = 0; i < batch.numRecords; i++)
+			{
+				GameAnalysis analysis = worker.analyze(batch.firstSequence + i, batch.records[i]);
+				summary.add(analysis);
+				if (analyses != null)
+				{
+					analyses[i] = analysis;
+				}
+			}
+
+			results.put(new Result(summary, analyses));
+		}
+	}
+
+	/*
+	 * Get the number of guesses the reference solver needs for a puzzle, having it play the puzzle
+	 * the first time.
+	 */
+	private int getReferenceGuesses (GameConfig config, int puzzle)
+	{
+		if (referenceSolver == null)
+		{
+			return GameAnalysis.NO_REFERENCE;
+		}
+
+		CodeSpace codeSpace = CodeSpace.forConfig(config);
+		int puzzleIndex = codeSpace.indexOf(puzzle);
+		if (puzzleIndex < 0)
+		{
+			return GameAnalysis.NO_REFERENCE;
+		}
+
+		/*
+		 * Two workers may both play a new puzzle, but they get the same answer, so that does no harm.
+		 */
+		AtomicIntegerArray counts = referenceGuesses.computeIfAbsent(config,
+				key -> new AtomicIntegerArray(codeSpace.getSize()));
+		int count = counts.get(puzzleIndex);
+		if (count == 0)
+		{
+			count = referenceSolver.solve(new GameSession(config, REFERENCE_GUESSES, puzzle));
+			counts.set(puzzleIndex, count);
+		}
+
+		return count;
+	}
+
+	/*
+	 * Write one game's analysis as a CSV line.
+	 */
+	private static void writeAnalysis (BufferedWriter writer, GameAnalysis analysis)
+	{
+		GameRecord record = analysis.getRecord();
+		try
+		{
+			writer.write(String.format("%d,%s,%s,%d,%d,%d,%d,%.4f,%d", analysis.getSequence(),
+					record.getConfig().getName(), record.getState(), record.getGuessCount(),
+					record.getNumRecordedGuesses(), analysis.getNumMismatches(), analysis.getNumWasted(),
+					analysis.getTotalBits(), analysis.getReferenceGuesses()));
+			writer.newLine();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/**
+	 * Totals for a number of analyzed games.
+	 */
+	public static final class Summary
+	{
+		private long numGames;
+		private long numWon;
+		private long numLost;
+		private long numGuesses;
+		private long numMismatches;
+		private long numUnverified;
+		private long numWasted;
+		private double totalBits;
+		private long totalDistance;
+		private long numCorrupt;
+
+		private Summary ()
+		{
+		}
+
+		/**
+		 * Gets the number of games.
+		 *
+		 * @return number of games
+		 */
+		public long getNumGames ()
+		{
+			return numGames;
+		}
+
+		/**
+		 * Gets the number of games won.
+		 *
+		 * @return number of games won
+		 */
+		public long getNumWon ()
+		{
+			return numWon;
+		}
+
+		/**
+		 * Gets the number of games lost.
+		 *
+		 * @return number of games lost
+		 */
+		public long getNumLost ()
+		{
+			return numLost;
+		}
+
+		/**
+		 * Gets the number of recorded guesses.
+		 *
+		 * @return number of guesses
+		 */
+		public long getNumGuesses ()
+		{
+			return numGuesses;
+		}
+
+		/**
+		 * Gets the number of recorded scores that don't match the game's rules.
+		 *
+		 * @return number of mismatched scores
+		 */
+		public long getNumMismatches ()
+		{
+			return numMismatches;
+		}
+
+		/**
+		 * Gets the number of games with any mismatched score.
+		 *
+		 * @return number of games that didn't verify
+		 */
+		public long getNumUnverified ()
+		{
+			return numUnverified;
+		}
+
+		/**
+		 * Gets the number of wasted guesses.
+		 *
+		 * @return number of guesses that could not have been the puzzle
+		 */
+		public long getNumWasted ()
+		{
+			return numWasted;
+		}
+
+		/**
+		 * Gets the total information gained by all the guesses.
+		 *
+		 * @return information gained, in bits
+		 */
+		public double getTotalBits ()
+		{
+			return totalBits;
+		}
+
+		/**
+		 * Gets the total distance from the reference solver over the games won.
+		 *
+		 * @return total distance, in guesses
+		 */
+		public long getTotalDistance ()
+		{
+			return totalDistance;
+		}
+
+		/**
+		 * Gets the number of corrupt records skipped.
+		 *
+		 * @return number of corrupt records
+		 */
+		public long getNumCorrupt ()
+		{
+			return numCorrupt;
+		}
+
+		/*
+		 * Add one game.
+		 */
+		private void add (GameAnalysis analysis)
+		{
+			GameRecord record = analysis.getRecord();
+
+			numGames++;
+			numWon += (record.getState() == GameSession.State.WON) ? 1 : 0;
+			numLost += (record.getState() == GameSession.State.LOST) ? 1 : 0;
+			numGuesses += record.getNumRecordedGuesses();
+			numMismatches += analysis.getNumMismatches();
+			numUnverified += (analysis.isVerified() == true) ? 0 : 1;
+			numWasted += analysis.getNumWasted();
+			totalBits += analysis.getTotalBits();
+			totalDistance += analysis.getDistance();
+		}
+
+		/*
+		 * Add another set of totals to these.
+		 */
+		private void merge (Summary other)
+		{
+			numGames += other.numGames;
+			numWon += other.numWon;
+			numLost += other.numLost;
+			numGuesses += other.numGuesses;
+			numMismatches += other.numMismatches;
+			numUnverified += other.numUnverified;
+			numWasted += other.numWasted;
+			totalBits += other.totalBits;
+			totalDistance += other.totalDistance;
+			numCorrupt += other.numCorrupt;
+		}
+	}
+
+	/*
+	 * Body of a pipeline stage.
+	 */
+	@FunctionalInterface
+	private interface Stage
+	{
+		void run ()
+				throws InterruptedException;
+	}
+
+	/*
+	 * A batch of records, in log order, starting at a given sequence number, and the number of corrupt
+	 * records skipped before them.
+	 */
+	private static final class Batch
+	{
+		private final long firstSequence;
+		private final GameRecord[] records;
+		private final int numRecords;
+		private final int numCorrupt;
+
+		private Batch (long firstSequence, GameRecord[] records, int numRecords, int numCorrupt)
+		{
+			this.firstSequence = firstSequence;
+			this.records = records;
+			this.numRecords = numRecords;
+			this.numCorrupt = numCorrupt;
+		}
+	}
+
+	/*
+	 * The totals for a batch, and its analyses if they're wanted.
+	 */
+	private static final class Result
+	{
+		private final Summary summary;
+		private final GameAnalysis[] analyses;
+
+		private Result (Summary summary, GameAnalysis[] analyses)
+		{
+			this.summary = summary;
+			this.analyses = analyses;
+		}
+	}
+
+	/*
+	 * The state a worker keeps between games: the candidate sets after each opening guess and score
+	 * it has seen. Only one thread uses a worker.
+	 */
+	private final class Worker
+	{
+		private final HashMap<Long, CandidateSet> openings = new HashMap<Long, CandidateSet>();
+
+		/*
+		 * Replay one game, guess by guess.
+		 */
+		private GameAnalysis analyze (long sequence, GameRecord record)
+		{
+			GameConfig config = record.getConfig();
+			CodeSpace codeSpace = CodeSpace.forConfig(config);
+			int numHoles = config.getNumHoles();
+			int puzzle = record.getPuzzle();
+			int numRecorded = record.getNumRecordedGuesses();
+
+			double[] bits = new double[numRecorded];
+			boolean[] wasted = new boolean[numRecorded];
+			int numMismatches = 0;
+
+			CandidateSet candidates = null;
+			int countBefore = codeSpace.getSize();
+			for (int i = 0; i < numRecorded; i++)
+			{
+				int guess = record.getGuess(i);
+
+				/*
+				 * Verify the recorded score. From here on, the score the rules give is used.
+				 */
+				int score = CodeScorer.score(puzzle, guess, numHoles);
+				if (score != record.getScore(i))
+				{
+					numMismatches++;
+				}
+
+				/*
+				 * A guess is wasted if it isn't a legal code, or isn't consistent with the scores so far.
+				 */
+				int guessIndex = codeSpace.indexOf(guess);
+				wasted[i] = guessIndex < 0 || (candidates != null && candidates.contains(guessIndex) == false);
+
+				/*
+				 * Narrow down the codes that could be the puzzle, starting from the shared set after the
+				 * opening guess.
+				 */
+				if (candidates == null)
+				{
+					candidates = getOpening(codeSpace, guess, score).copy();
+				}
+				else
+				{
+					candidates.retainConsistent(guess, score);
+				}
+
+				int countAfter = Math.max(1, candidates.getCount());
+				bits[i] = Math.log((double) countBefore / countAfter) / Math.log(2);
+				countBefore = countAfter;
+			}
+
+			return new GameAnalysis(sequence, record, bits, wasted, numMismatches,
+					getReferenceGuesses(config, puzzle));
+		}
+
+		/*
+		 * Get the codes left after an opening guess and score, working them out the first time.
+		 */
+		private CandidateSet getOpening (CodeSpace codeSpace, int guess, int score)
+		{
+			GameConfig config = codeSpace.getConfig();
+			long configWord = (config.getNumColors() << 6) | (config.getNumHoles() << 2)
+					| ((config.getDupsAllowed() == true) ? 2 : 0) | ((config.getBlanksAllowed() == true) ? 1 : 0);
+			Long key = (configWord << 40) | ((guess & 0xFFFFFFFFL) << 8) | score;
+
+			CandidateSet opening = openings.get(key);
+			if (opening == null)
+			{
+				if (openings.size() == MAX_OPENINGS)
+				{
+					openings.clear();
+				}
+
+				opening = new CandidateSet(codeSpace);
+				opening.retainConsistent(guess, score);
+				openings.put(key, opening);
+			}
+
+			return opening;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package mastermind;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Class that plays a large number of headless games with a solver, and
+ * reports how it did: the distribution of guess counts, the win rate within
+ * the allowed number of guesses, and the number of games played per second.
+ * <p>
+ * Games are played in fixed size chunks spread across a
+ * <code>ForkJoinPool</code>. Each chunk draws its puzzles from its own
+ * <code>PuzzleGenerator</code>, with its own <code>SplittableRandom</code>
+ * split from the seed in chunk order before any game is played, so the same
+ * seed plays exactly the same games whatever the number of threads.
+ * <p>
+ * Usage: <code>Simulator [options]</code>, where the options are:
+ * <ul>
+ * <li><code>--colors n</code>, <code>--holes n</code>,
+ * <code>--guesses n</code>, <code>--dups true|false</code>,
+ * <code>--blanks true|false</code>: the game configuration; anything not
+ * given is taken from the saved game options</li>
+ * <li><code>--solver knuth|entropy</code>: the strategy (default entropy)</li>
+ * <li><code>--book true|false</code>: play the opening moves from the
+ * opening book (default true)</li>
+ * <li><code>--games n</code>: number of games (default 1,000,000)</li>
+ * <li><code>--seed n</code>: random seed (default 42)</li>
+ * <li><code>--threads n</code>: number of threads (default all cores)</li>
+ * <li><code>--log true|false</code>: add every game to the game log
+ * (default false)</li>
+ * </ul>
+ *
+ * @author Jon
+ *
+ */
+public class Simulator
+{
+
+    //---------------- Class variables -------------------------------------
+
+	private static final int CHUNK_SIZE = 4096;
+	private static final long DEFAULT_NUM_GAMES = 1_000_000;
+	private static final long DEFAULT_SEED = 42;
+
+    /**
+     * Specifies the main simulator entry point.
+     *
+     * @param args simulator options
+     */
+	public static void main (String[] args)
+	{
+
+		/*
+		 * Start with the saved game options, and override them from the command line.
+		 */
+		Options options = Options.getInstance();
+		options.readJavaPreferences();
+		OptionsSnapshot snapshot = options.getSnapshot();
+
+		String solverName = "entropy";
+		boolean useBook = true;
+		long numGames = DEFAULT_NUM_GAMES;
+		long seed = DEFAULT_SEED;
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		boolean logGames = false;
+
+		for (int i = 0; i + 1 < args.length; i += 2)
+		{
+			String value = args[i + 1];
+			switch (args[i])
+			{
+			case "--colors":
+				snapshot = snapshot.withNumColors(Integer.parseInt(value));
+				break;
+
+			case "--holes":
+				snapshot = snapshot.withNumHoles(Integer.parseInt(value));
+				break;
+
+			case "--guesses":
+				snapshot = snapshot.withNumGuesses(Integer.parseInt(value));
+				break;
+
+			case "--dups":
+				snapshot = snapshot.withDupsAllowed(Boolean.parseBoolean(value));
+				break;
+
+			case "--blanks":
+				snapshot = snapshot.withBlanksAllowed(Boolean.parseBoolean(value));
+				break;
+
+			case "--solver":
+				solverName = value;
+				break;
+
+			case "--book":
+				useBook = Boolean.parseBoolean(value);
+				break;
+
+			case "--games":
+				numGames = Long.parseLong(value);
+				break;
+
+			case "--seed":
+				seed = Long.parseLong(value);
+				break;
+
+			case "--threads":
+				numThreads = Integer.parseInt(value);
+				break;
+
+			case "--log":
+				logGames = Boolean.parseBoolean(value);
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown option '" + args[i] + "'");
+			}
+		}
+
+		if (args.length % 2 != 0)
+		{
+			throw new IllegalArgumentException("Missing value for option '" + args[args.length - 1] + "'");
+		}
+
+		GameConfig config = GameConfig.fromSnapshot(snapshot);
+		int numGuesses = snapshot.getNumGuesses();
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+		/*
+		 * Create the solver. Both solvers do their own work in the simulator's pool, the Knuth solver
+		 * explicitly, and the entropy solver because parallel streams run in the pool they're
+		 * started from.
+		 */
+		Solver solver;
+		switch (solverName)
+		{
+		case "knuth":
+			solver = new KnuthSolver(pool);
+			break;
+
+		case "entropy":
+			solver = new EntropySolver();
+			break;
+
+		default:
+			throw new IllegalArgumentException("Unknown solver '" + solverName + "'");
+		}
+
+		/*
+		 * Load or build the opening book up front, so the games don't wait on each other for it.
+		 */
+		if (useBook == true)
+		{
+			Solver bookSolver = solver;
+			pool.submit(() -> OpeningBook.forConfig(config, bookSolver, OpeningBook.DEFAULT_DEPTH)).join();
+			solver = new BookSolver(solver);
+		}
+
+		/*
+		 * Split a random number generator for each chunk, in chunk order.
+		 */
+		int numChunks = (int) ((numGames + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] chunkRandoms = new SplittableRandom[numChunks];
+		for (int i = 0; i < numChunks; i++)
+		{
+			chunkRandoms[i] = root.split();
+		}
+
+		/*
+		 * Open the game log if the games are to be kept. Records are written in the background while
+		 * the games are played.
+		 */
+		GameLog gameLog = (logGames == true) ? GameLog.open(GameLog.getDefaultDirectory()) : null;
+
+		/*
+		 * Play the chunks in parallel. The totals are just sums, so they don't depend on the order the
+		 * chunks finish in.
+		 */
+		Solver gameSolver = solver;
+		long totalGames = numGames;
+		long start = System.nanoTime();
+		Stats stats = pool.submit(() -> IntStream.range(0, numChunks).parallel()
+				.mapToObj(chunk ->
+				{
+					long firstGame = (long) chunk * CHUNK_SIZE;
+					int chunkGames = (int) Math.min(CHUNK_SIZE, totalGames - firstGame);
+					return playChunk(config, numGuesses, gameSolver, chunkRandoms[chunk], chunkGames, gameLog);
+				})
+				.reduce(new Stats(numGuesses), Stats::merge)).join();
+		long elapsed = System.nanoTime() - start;
+		pool.shutdown();
+
+		/*
+		 * Write out the rest of the game log, timing only what's left after the games are played.
+		 */
+		long logElapsed = 0;
+		if (gameLog != null)
+		{
+			long logStart = System.nanoTime();
+			gameLog.close();
+			logElapsed = System.nanoTime() - logStart;
+		}
+
+		/*
+		 * Report the results.
+		 */
+		double seconds = elapsed / 1e9;
+		System.out.printf("configuration  %s%n", config.getName());
+		System.out.printf("solver         %s%s%n", solverName, (useBook == true) ? " with opening book" : "");
+		System.out.printf("games          %d%n", stats.numGames);
+		System.out.printf("threads        %d%n", numThreads);
+		System.out.printf("seed           %d%n", seed);
+		System.out.printf("win rate       %.4f%% within %d guesses%n",
+				100.0 * stats.numWins / stats.numGames, numGuesses);
+		System.out.printf("mean guesses   %.4f (games won)%n", (double) stats.totalWinGuesses / stats.numWins);
+		System.out.printf("elapsed        %.3f s%n", seconds);
+		System.out.printf("games/s        %.1f%n", stats.numGames / seconds);
+		if (gameLog != null)
+		{
+			System.out.printf("game log       %s (%.3f s to finish writing)%n", gameLog.getDirectory(),
+					logElapsed / 1e9);
+		}
+		System.out.println();
+		System.out.printf("%7s %12s %9s%n", "guesses", "games", "percent");
+		for (int i = 1; i <= numGuesses; i++)
+		{
+			if (stats.guessCounts[i] > 0)
+			{
+				System.out.printf("%7d %12d %8.4f%%%n", i, stats.guessCounts[i],
+						100.0 * stats.guessCounts[i] / stats.numGames);
+			}
+		}
+		System.out.printf("%7s %12d %8.4f%%%n", "lost", stats.numGames - stats.numWins,
+				100.0 * (stats.numGames - stats.numWins) / stats.numGames);
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Play one chunk of games, adding each one to the game log if there is one.
+	 */
+	private static Stats playChunk (GameConfig config, int numGuesses, Solver solver, SplittableRandom rand,
+			int numGames, GameLog gameLog)
+	{
+		Stats stats = new Stats(numGuesses);
+		new PuzzleGenerator(config, rand).generate(numGames).forEach(puzzle ->
+		{
+			GameSession session = new GameSession(config, numGuesses, puzzle);
+			solver.solve(session);
+			stats.add(session);
+
+			if (gameLog != null)
+			{
+				gameLog.append(session);
+			}
+		});
+
+		return stats;
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/*
+	 * Totals for a number of games.
+	 */
+	private static final class Stats
+	{
+		private final long[] guessCounts;
+		private long numGames;
+		private long numWins;
+		private long totalWinGuesses;
+
+		private Stats (int numGuesses)
+		{
+			guessCounts = new long[numGuesses + 1];
+		}
+
+		/*
+		 * Add a finished game.
+		 */
+		private void add (GameSession session)
+		{
+			numGames++;
+			if (session.getState() == GameSession.State.WON)
+			{
+				numWins++;
+				totalWinGuesses += session.getGuessCount();
+				guessCounts[session.getGuessCount()]++;
+			}
+		}
+
+		/*
+		 * Combine two sets of totals into a new one.
+		 */
+		private static Stats merge (Stats a, Stats b)
+		{
+			Stats result = new Stats(a.guessCounts.length - 1);
+			for (int i = 0; i < result.guessCounts.length; i++)
+			{
+				result.guessCounts[i] = a.guessCounts[i] + b.guessCounts[i];
+			}
+			result.numGames = a.numGames + b.numGames;
+			result.numWins = a.numWins + b.numWins;
+			result.totalWinGuesses = a.totalWinGuesses + b.totalWinGuesses;
+
+			return result;
+		}
+	}
+}
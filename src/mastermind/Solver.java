@@ -0,0 +1,54 @@
+package mastermind;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Interface for a codebreaker strategy that chooses guesses for a game.
+ *
+ * @author Jon
+ *
+ */
+public interface Solver
+{
+
+	/**
+	 * Chooses the next guess for a game, based on the guesses and scores so far.
+	 * The game is not changed.
+	 *
+	 * @param session game in progress
+	 * @return packed guess code
+	 */
+	default int chooseGuess (GameSession session)
+	{
+		return chooseGuess(session, () -> false);
+	}
+
+	/**
+	 * Chooses the next guess for a game, based on the guesses and scores so far,
+	 * giving up if the search is cancelled. The game is not changed.
+	 *
+	 * @param session game in progress
+	 * @param cancelled checked regularly during the search; when it returns
+	 * <code>true</code> the search is abandoned
+	 * @return packed guess code
+	 * @throws CancellationException If the search was cancelled.
+	 */
+	int chooseGuess (GameSession session, BooleanSupplier cancelled);
+
+	/**
+	 * Plays a game to the end, submitting each guess this solver chooses.
+	 *
+	 * @param session game to play
+	 * @return number of guesses made
+	 */
+	default int solve (GameSession session)
+	{
+		while (session.isOver() == false)
+		{
+			session.submitGuess(chooseGuess(session));
+		}
+
+		return session.getGuessCount();
+	}
+}
@@ -0,0 +1,41 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for a solver choosing a
+ * guess, either for a hint or in diag mode.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.SolverMove")
+@Label("Solver Move")
+@Category("Mastermind")
+@Description("A solver choosing the next guess for a game")
+@StackTrace(false)
+final class SolverMoveEvent extends Event
+{
+	@Label("Solver")
+	String solver;
+
+	@Label("Guess Number")
+	@Description("Number of the guess being chosen, starting at 1")
+	int guessNumber;
+
+	@Label("Candidates")
+	@Description("Number of codes still consistent with the clues")
+	int numCandidates;
+
+	@Label("Guess")
+	@Description("Packed guess code chosen, 4 bits per hole, or 0 if the search was aborted")
+	int guess;
+
+	@Label("Aborted")
+	boolean aborted;
+}
@@ -0,0 +1,365 @@
+package mastermind;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Class that keeps the player's statistics for each set of game options: games
+ * won and lost, how many guesses each win took, and the time spent solving.
+ * <p>
+ * The statistics are kept as running totals, so recording a game just adds to
+ * a few counters, and showing the statistics never looks at past games. The
+ * totals for each set of options are one small array of counters. Each array
+ * is saved as a single value in a child of the game options preferences node,
+ * written whenever the array changes. The preferences are flushed to the
+ * backing store by <code>flush</code>, and otherwise in the background as
+ * Java preferences normally are.
+ * <p>
+ * All the methods synchronize on the store.
+ *
+ * @author Jon
+ *
+ */
+public final class StatsStore
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Name of the preferences node, under the game options node.
+	 */
+	private static final String NODE_NAME = "stats";
+
+	/*
+	 * Format of a saved value: a version byte, the options (colors, holes, guesses, flags), then the
+	 * counters.
+	 */
+	private static final int VALUE_VERSION = 1;
+	private static final int VALUE_HEADER_SIZE = 5;
+	private static final int FLAG_DUPS_ALLOWED = 1 << 0;
+	private static final int FLAG_BLANKS_ALLOWED = 1 << 1;
+
+	/*
+	 * Counter indexes. The histogram of wins has one counter for each possible number of guesses,
+	 * starting with 1.
+	 */
+	private static final int COUNT_WON = 0;
+	private static final int COUNT_LOST = 1;
+	private static final int COUNT_SOLVE_MILLIS = 2;
+	private static final int COUNT_WON_IN = 3;
+
+	/*
+	 * Order the statistics are listed in.
+	 */
+	private static final Comparator<OptionsSnapshot> OPTIONS_ORDER =
+			Comparator.comparingInt(OptionsSnapshot::getNumColors)
+			.thenComparingInt(OptionsSnapshot::getNumHoles)
+			.thenComparingInt(OptionsSnapshot::getNumGuesses)
+			.thenComparing(OptionsSnapshot::getDupsAllowed)
+			.thenComparing(OptionsSnapshot::getBlanksAllowed);
+
+	private static StatsStore defaultStore = null;
+
+	private final Preferences node;
+
+	/*
+	 * The counters for each set of options that has been played.
+	 */
+	private final Map<OptionsSnapshot, long[]> counters = new HashMap<OptionsSnapshot, long[]>();
+
+	/**
+	 * Class constructor specifying the preferences node.
+	 *
+	 * @param node preferences node that holds the statistics
+	 */
+	public StatsStore (Preferences node)
+	{
+		this.node = node;
+	}
+
+	/**
+	 * Gets the store for the user's statistics, reading them the first time.
+	 *
+	 * @return statistics store
+	 */
+	public static synchronized StatsStore getDefault ()
+	{
+		if (defaultStore == null)
+		{
+			defaultStore = new StatsStore(Preferences.userRoot().node(Options.class.getName()).node(NODE_NAME));
+			defaultStore.load();
+		}
+
+		return defaultStore;
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Reads the statistics from the preferences node. Values that can't be
+	 * read are skipped.
+	 *
+	 * @return number of sets of options read
+	 * @throws IllegalStateException If the preferences can't be read.
+	 */
+	public synchronized int load ()
+	{
+		String[] keys;
+		try
+		{
+			keys = node.keys();
+		}
+		catch (BackingStoreException e)
+		{
+			throw new IllegalStateException("Unable to read statistics", e);
+		}
+
+		counters.clear();
+		for (String key : keys)
+		{
+			byte[] value = node.getByteArray(key, null);
+			if (value == null || value.length < VALUE_HEADER_SIZE)
+			{
+				continue;
+			}
+
+			/*
+			 * Decode the options, and check the value has the right number of counters for them.
+			 */
+			ByteBuffer buffer = ByteBuffer.wrap(value);
+			int version = buffer.get();
+			int numColors = buffer.get();
+			int numHoles = buffer.get();
+			int numGuesses = buffer.get();
+			int flags = buffer.get();
+			if (version != VALUE_VERSION || numGuesses < 1
+					|| buffer.remaining() != (COUNT_WON_IN + numGuesses) * Long.BYTES)
+			{
+				continue;
+			}
+
+			long[] counts = new long[COUNT_WON_IN + numGuesses];
+			buffer.asLongBuffer().get(counts);
+
+			counters.put(new OptionsSnapshot(numColors, numHoles, numGuesses, (flags & FLAG_DUPS_ALLOWED) != 0,
+					(flags & FLAG_BLANKS_ALLOWED) != 0), counts);
+		}
+
+		return counters.size();
+	}
+
+	/**
+	 * Adds a finished game to the statistics, and saves the statistics for its
+	 * options.
+	 *
+	 * @param session game that was won or lost
+	 * @param solveMillis time the player spent on the game, in milliseconds
+	 * @throws IllegalArgumentException If the game isn't over.
+	 */
+	public synchronized void recordGame (GameSession session, long solveMillis)
+	{
+		if (session.isOver() == false)
+		{
+			throw new IllegalArgumentException("Game is not over");
+		}
+
+		GameConfig config = session.getConfig();
+		OptionsSnapshot options = new OptionsSnapshot(config.getNumColors(), config.getNumHoles(),
+				session.getNumGuesses(), config.getDupsAllowed(), config.getBlanksAllowed());
+		long[] counts = counters.computeIfAbsent(options, key -> new long[COUNT_WON_IN + key.getNumGuesses()]);
+
+		/*
+		 * Add the game to the counters.
+		 */
+		if (session.getState() == GameSession.State.WON)
+		{
+			counts[COUNT_WON]++;
+			counts[COUNT_SOLVE_MILLIS] += solveMillis;
+			counts[COUNT_WON_IN + Math.min(session.getGuessCount(), options.getNumGuesses()) - 1]++;
+		}
+		else
+		{
+			counts[COUNT_LOST]++;
+		}
+
+		/*
+		 * Save the counters for these options. This only changes the node in memory.
+		 */
+		node.putByteArray(getKey(options), encode(options, counts));
+	}
+
+	/**
+	 * Gets the statistics for every set of options that has been played,
+	 * ordered by the options.
+	 *
+	 * @return statistics, one for each set of options
+	 */
+	public synchronized List<ConfigStats> getAll ()
+	{
+		List<OptionsSnapshot> played = new ArrayList<OptionsSnapshot>(counters.keySet());
+		played.sort(OPTIONS_ORDER);
+
+		List<ConfigStats> all = new ArrayList<ConfigStats>(played.size());
+		for (OptionsSnapshot options : played)
+		{
+			all.add(new ConfigStats(options, counters.get(options).clone()));
+		}
+
+		return all;
+	}
+
+	/**
+	 * Writes the statistics to the backing store.
+	 *
+	 * @throws BackingStoreException If the backing store can't be written.
+	 */
+	public synchronized void flush ()
+			throws BackingStoreException
+	{
+		node.flush();
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Get the preferences key for a set of options.
+	 */
+	private static String getKey (OptionsSnapshot options)
+	{
+		return options.getNumColors() + "x" + options.getNumHoles() + "x" + options.getNumGuesses()
+				+ ((options.getDupsAllowed() == true) ? "-dups" : "-nodups")
+				+ ((options.getBlanksAllowed() == true) ? "-blanks" : "-noblanks");
+	}
+
+	/*
+	 * Encode the counters for a set of options as a preferences value.
+	 */
+	private static byte[] encode (OptionsSnapshot options, long[] counts)
+	{
+		int flags = 0;
+		flags |= (options.getDupsAllowed() == true) ? FLAG_DUPS_ALLOWED : 0;
+		flags |= (options.getBlanksAllowed() == true) ? FLAG_BLANKS_ALLOWED : 0;
+
+		ByteBuffer buffer = ByteBuffer.allocate(VALUE_HEADER_SIZE + counts.length * Long.BYTES);
+		buffer.put((byte) VALUE_VERSION);
+		buffer.put((byte) options.getNumColors());
+		buffer.put((byte) options.getNumHoles());
+		buffer.put((byte) options.getNumGuesses());
+		buffer.put((byte) flags);
+		buffer.asLongBuffer().put(counts);
+
+		return buffer.array();
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/**
+	 * Statistics for one set of game options. These are a copy, so they don't
+	 * change as more games are played.
+	 */
+	public static final class ConfigStats
+	{
+		private final OptionsSnapshot options;
+		private final long[] counts;
+
+		private ConfigStats (OptionsSnapshot options, long[] counts)
+		{
+			this.options = options;
+			this.counts = counts;
+		}
+
+		/**
+		 * Gets the game options these statistics are for.
+		 *
+		 * @return game options
+		 */
+		public OptionsSnapshot getOptions ()
+		{
+			return options;
+		}
+
+		/**
+		 * Gets the number of games played to the end.
+		 *
+		 * @return number of games won or lost
+		 */
+		public long getNumGames ()
+		{
+			return counts[COUNT_WON] + counts[COUNT_LOST];
+		}
+
+		/**
+		 * Gets the number of games won.
+		 *
+		 * @return number of games won
+		 */
+		public long getNumWon ()
+		{
+			return counts[COUNT_WON];
+		}
+
+		/**
+		 * Gets the number of games lost.
+		 *
+		 * @return number of games lost
+		 */
+		public long getNumLost ()
+		{
+			return counts[COUNT_LOST];
+		}
+
+		/**
+		 * Gets the fraction of games won.
+		 *
+		 * @return win rate from 0 to 1, or 0 if no games have been played
+		 */
+		public double getWinRate ()
+		{
+			long numGames = getNumGames();
+			return (numGames > 0) ? (double) counts[COUNT_WON] / numGames : 0;
+		}
+
+		/**
+		 * Gets the number of games won in a given number of guesses.
+		 *
+		 * @param guessCount number of guesses, from 1 to the number allowed
+		 * @return number of games won in that many guesses
+		 */
+		public long getNumWonIn (int guessCount)
+		{
+			return counts[COUNT_WON_IN + guessCount - 1];
+		}
+
+		/**
+		 * Gets the average number of guesses a win took.
+		 *
+		 * @return average guesses per win, or 0 if no games have been won
+		 */
+		public double getAverageGuesses ()
+		{
+			long totalGuesses = 0;
+			for (int i = 1; i <= options.getNumGuesses(); i++)
+			{
+				totalGuesses += i * getNumWonIn(i);
+			}
+
+			return (counts[COUNT_WON] > 0) ? (double) totalGuesses / counts[COUNT_WON] : 0;
+		}
+
+		/**
+		 * Gets the average time a win took.
+		 *
+		 * @return average solve time in seconds, or 0 if no games have been won
+		 */
+		public double getAverageSolveSeconds ()
+		{
+			return (counts[COUNT_WON] > 0) ? counts[COUNT_SOLVE_MILLIS] / 1000.0 / counts[COUNT_WON] : 0;
+		}
+	}
+}
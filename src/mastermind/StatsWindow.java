@@ -0,0 +1,191 @@
+package mastermind;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.pivot.beans.BXML;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.wtk.Button;
+import org.apache.pivot.wtk.ButtonPressListener;
+import org.apache.pivot.wtk.Display;
+import org.apache.pivot.wtk.Label;
+import org.apache.pivot.wtk.PushButton;
+import org.apache.pivot.wtk.TablePane;
+import org.apache.pivot.wtk.Window;
+
+/**
+ * Class that handles the player statistics window.
+ * <p>
+ * The statistics are running totals kept by <code>StatsStore</code>, so the
+ * window shows one row for each set of game options played, however many
+ * games have been played.
+ *
+ * @author Jon
+ *
+ */
+public class StatsWindow
+{
+
+    //---------------- Private variables -----------------------------------
+
+    private Window statsWindow = null;
+
+	/*
+	 * BXML variables.
+	 */
+	@BXML private Label statsLabel = null;
+	@BXML private TablePane statsTablePane = null;
+	@BXML private PushButton statsDoneButton = null;
+
+	/**
+	 * Class constructor.
+	 */
+	public StatsWindow ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Displays the player statistics in a new window.
+	 *
+	 * @param display display object for managing windows
+	 * @throws IOException If an error occurs trying to read the BXML file.
+	 * @throws SerializationException If an error occurs trying to
+	 * deserialize the BXML file.
+	 */
+    public void displayStats (Display display)
+    		throws IOException, SerializationException
+    {
+    	WindowOpenEvent openEvent = new WindowOpenEvent();
+    	openEvent.begin();
+
+    	/*
+    	 * Get the BXML information for the statistics window.
+    	 */
+		initializeBxmlVariables();
+
+		/*
+		 * Add a row for each set of options played. The heading row is predefined in the bxml.
+		 */
+		List<StatsStore.ConfigStats> allStats = StatsStore.getDefault().getAll();
+		for (StatsStore.ConfigStats stats : allStats)
+		{
+			statsTablePane.getRows().add(createStatsRow(stats));
+		}
+
+		/*
+		 * Set up the label and done button.
+		 */
+		if (allStats.isEmpty() == true)
+		{
+			statsLabel.setText("No games have been finished yet.");
+		}
+		else
+		{
+			statsLabel.setText("Games finished, for each set of options played.");
+		}
+		statsDoneButton.setButtonData("Done");
+
+        /*
+         * Listener to handle the done button press.
+         */
+		statsDoneButton.getButtonPressListeners().add(new ButtonPressListener()
+        {
+            @Override
+            public void buttonPressed(Button button)
+            {
+            	statsWindow.close();
+
+            	WindowCloseEvent closeEvent = new WindowCloseEvent();
+            	if (closeEvent.shouldCommit() == true)
+            	{
+            		closeEvent.window = statsWindow.getTitle();
+            		closeEvent.commit();
+            	}
+            }
+        });
+
+		/*
+		 * Set the window title.
+		 */
+		statsWindow.setTitle("Player Statistics");
+
+		/*
+		 * Open the statistics window.
+		 */
+    	statsWindow.open(display);
+
+    	if (openEvent.shouldCommit() == true)
+    	{
+    		openEvent.window = statsWindow.getTitle();
+    		openEvent.commit();
+    	}
+    }
+
+    //---------------- Private methods -------------------------------------
+
+    /*
+     * Create the table row for the statistics of one set of options.
+     */
+    private TablePane.Row createStatsRow (StatsStore.ConfigStats stats)
+    {
+    	OptionsSnapshot options = stats.getOptions();
+
+    	/*
+    	 * Describe the options.
+    	 */
+    	String optionsText = options.getNumColors() + " colors, " + options.getNumHoles() + " holes, "
+    			+ options.getNumGuesses() + " guesses"
+    			+ ((options.getDupsAllowed() == true) ? ", duplicates" : "")
+    			+ ((options.getBlanksAllowed() == true) ? ", blanks" : "");
+
+    	/*
+    	 * List the number of wins for each number of guesses, skipping the ones with no wins.
+    	 */
+    	StringBuilder winsText = new StringBuilder();
+    	for (int i = 1; i <= options.getNumGuesses(); i++)
+    	{
+    		long numWon = stats.getNumWonIn(i);
+    		if (numWon > 0)
+    		{
+    			winsText.append((winsText.length() > 0) ? "   " : "").append(i).append(": ").append(numWon);
+    		}
+    	}
+
+    	/*
+    	 * Create the row.
+    	 */
+    	TablePane.Row row = new TablePane.Row();
+    	row.add(new Label(optionsText));
+    	row.add(new Label(Long.toString(stats.getNumGames())));
+    	row.add(new Label(String.format("%d (%.0f%%)", stats.getNumWon(), stats.getWinRate() * 100)));
+    	row.add(new Label(String.format("%.2f", stats.getAverageGuesses())));
+    	row.add(new Label(String.format("%.0f s", stats.getAverageSolveSeconds())));
+    	row.add(new Label(winsText.toString()));
+
+    	return row;
+    }
+
+    /*
+     * Initialize BXML variables.
+     */
+    private void initializeBxmlVariables ()
+    		throws IOException, SerializationException
+    {
+
+        long start = Metrics.WINDOW_LOAD.start();
+
+        WindowLoader.LoadedWindow loadedWindow = WindowLoader.take("statsWindow.bxml");
+        statsWindow = loadedWindow.getWindow();
+
+        statsLabel =
+        		(Label)loadedWindow.get("statsLabel");
+        statsTablePane =
+        		(TablePane)loadedWindow.get("statsTablePane");
+        statsDoneButton =
+        		(PushButton)loadedWindow.get("statsDoneButton");
+
+        Metrics.WINDOW_LOAD.stop(start);
+    }
+}
@@ -0,0 +1,25 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for closing a window.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.WindowClose")
+@Label("Window Close")
+@Category("Mastermind")
+@Description("Closing a window")
+@StackTrace(false)
+final class WindowCloseEvent extends Event
+{
+	@Label("Window")
+	String window;
+}
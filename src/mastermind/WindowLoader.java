@@ -0,0 +1,210 @@
+package mastermind;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.apache.pivot.beans.BXMLSerializer;
+import org.apache.pivot.collections.Map;
+import org.apache.pivot.serialization.SerializationException;
+import org.apache.pivot.wtk.ApplicationContext;
+import org.apache.pivot.wtk.Window;
+
+/**
+ * Class that loads windows from BXML files, ahead of time where it can. This
+ * is a utility class.
+ * <p>
+ * Each BXML file is read from the class path only once, and kept in memory.
+ * Pivot components can't be copied, so every window still has to be
+ * deserialized, but that's done ahead of time: once a window has been
+ * preloaded, a spare copy is kept ready, and each time the spare is taken the
+ * next one is queued. So opening a window normally just takes the spare,
+ * without parsing anything when the user is waiting for it.
+ * <p>
+ * Pivot isn't thread safe, so spare windows are built on the event thread,
+ * one window per queued callback, when it has nothing else to do. All the
+ * methods must be called on the event thread too.
+ *
+ * @author Jon
+ *
+ */
+public final class WindowLoader
+{
+
+    //---------------- Class variables -------------------------------------
+
+	/*
+	 * Contents of each BXML file, read the first time it's needed.
+	 */
+	private static final HashMap<String, byte[]> templates = new HashMap<String, byte[]>();
+
+	/*
+	 * The spare window for each BXML file that has one ready.
+	 */
+	private static final HashMap<String, LoadedWindow> spares = new HashMap<String, LoadedWindow>();
+
+	/*
+	 * BXML files whose spare window is queued to be built.
+	 */
+	private static final HashSet<String> queued = new HashSet<String>();
+
+	/*
+	 * Constructor. Making it private prevents instantiation by any other class.
+	 */
+	private WindowLoader ()
+	{
+	}
+
+    //---------------- Public methods --------------------------------------
+
+	/**
+	 * Queues building a spare window for each of the given BXML files, if
+	 * there isn't one already.
+	 *
+	 * @param names BXML file names, relative to this class
+	 */
+	public static void preload (String... names)
+	{
+		for (String name : names)
+		{
+			queueBuild(name);
+		}
+	}
+
+	/**
+	 * Gets a window from a BXML file. The spare window is used if there is one
+	 * ready, otherwise the window is built now. Either way, the next spare is
+	 * queued.
+	 *
+	 * @param name BXML file name, relative to this class
+	 * @return new window and its namespace
+	 * @throws IOException If an error occurs trying to read the BXML file.
+	 * @throws SerializationException If an error occurs trying to
+	 * deserialize the BXML file.
+	 */
+	public static LoadedWindow take (String name)
+			throws IOException, SerializationException
+	{
+		LoadedWindow window = spares.remove(name);
+		if (window == null)
+		{
+			window = build(name);
+		}
+
+		queueBuild(name);
+
+		return window;
+	}
+
+    //---------------- Private methods -------------------------------------
+
+	/*
+	 * Queue building a spare window on the event thread, unless there's one ready or queued already.
+	 */
+	private static void queueBuild (String name)
+	{
+		if (spares.containsKey(name) == true || queued.add(name) == false)
+		{
+			return;
+		}
+
+		ApplicationContext.queueCallback(() ->
+		{
+			queued.remove(name);
+			if (spares.containsKey(name) == true)
+			{
+				return;
+			}
+
+			try
+			{
+				spares.put(name, build(name));
+			}
+			catch (IOException | SerializationException e)
+			{
+
+				/*
+				 * Leave no spare. Taking the window builds it again, and reports the error then.
+				 */
+			}
+		});
+	}
+
+	/*
+	 * Build a window from the cached BXML.
+	 */
+	private static LoadedWindow build (String name)
+			throws IOException, SerializationException
+	{
+		BXMLSerializer windowSerializer = new BXMLSerializer();
+		Window window = (Window) windowSerializer.readObject(new ByteArrayInputStream(getTemplate(name)));
+
+		return new LoadedWindow(window, windowSerializer.getNamespace());
+	}
+
+	/*
+	 * Get the contents of a BXML file, reading it the first time.
+	 */
+	private static byte[] getTemplate (String name)
+			throws IOException
+	{
+		byte[] template = templates.get(name);
+		if (template == null)
+		{
+			try (InputStream input = WindowLoader.class.getResourceAsStream(name))
+			{
+				if (input == null)
+				{
+					throw new IOException("Missing BXML file " + name);
+				}
+
+				template = input.readAllBytes();
+			}
+
+			templates.put(name, template);
+		}
+
+		return template;
+	}
+
+    //---------------- Nested classes --------------------------------------
+
+	/**
+	 * A window loaded from a BXML file, with the named components from the
+	 * file.
+	 */
+	public static final class LoadedWindow
+	{
+		private final Window window;
+		private final Map<String, Object> namespace;
+
+		private LoadedWindow (Window window, Map<String, Object> namespace)
+		{
+			this.window = window;
+			this.namespace = namespace;
+		}
+
+		/**
+		 * Gets the window.
+		 *
+		 * @return window
+		 */
+		public Window getWindow ()
+		{
+			return window;
+		}
+
+		/**
+		 * Gets a component by its BXML ID.
+		 *
+		 * @param id BXML ID
+		 * @return component, or <code>null</code> if there's none with that ID
+		 */
+		public Object get (String id)
+		{
+			return namespace.get(id);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package mastermind;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class that represents the flight recorder event for setting up and opening
+ * a window. The event lasts from when the window starts being set up until it
+ * has been opened.
+ *
+ * @author Jon
+ *
+ */
+@Name("mastermind.WindowOpen")
+@Label("Window Open")
+@Category("Mastermind")
+@Description("Setting up and opening a window")
+@StackTrace(false)
+final class WindowOpenEvent extends Event
+{
+	@Label("Window")
+	String window;
+}